@@ -1,33 +1,65 @@
 package classification;
 
 //import java.util.LinkedHashMap;
+import java.io.PrintWriter;
 import java.util.Vector;
 
-import feature_extraction.FeatureExtractor;
+import feature_extraction.Configuration;
+import feature_extraction.MadamiraPool;
 
 public class Main {
 	/**
-	 * Reads tweets from a file, generates their feature file then classifies them.
-	 * Command-line arguments should be: "location_of_tweets location_of_output_file"
+	 * Reads tweets from a file, extracts their features then classifies them.
+	 * Command-line arguments should be: "location_of_tweets location_of_output_file [chunk_size]"
+	 * If a chunk size is given, tweets are streamed through the whole pipeline that many at a time,
+	 * and labels are written as soon as each chunk is classified, so memory does not grow with the input.
 	 * @param args Input of main
 	 */
 	public static void main(String[] args) {
 		try {
 			String tweetLocation = args[0];
+			String predictionFile = args[1];
+			int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+			if (args.length > 2 && chunkSize < 1) {
+				throw new IllegalArgumentException("Chunk size must be positive. "
+						+ "Usage: location_of_tweets location_of_output_file [chunk_size]");
+			}
 			
-			Vector<String> tweets = TweetIO.readTweetsFromFile(tweetLocation);
-			
-			String featureFile = "Intermediate\\features.txt";
-			
-			FeatureExtractor.generateFeatureFile(featureFile, tweets, false);
-			
-			String modelFile = "Resources\\Model\\rbfc+2g-4.txt";
+			String modelFile = Configuration.get().getModelFile();
+			SentimentClassifier classifier = new SentimentClassifier(modelFile);
 			
-			String predictionFile = args[1];
-			String [] input = {featureFile, modelFile, predictionFile};
-			svm_predict.predict(input);
+			if (args.length > 2) {
+				classifyInChunks(tweetLocation, predictionFile, classifier, chunkSize);
+			}
+			else {
+				Vector<String> tweets = TweetIO.readTweetsFromFile(tweetLocation);
+				
+				TweetIO.writeLabelsToFile(classifier.classify(tweets), predictionFile);
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
+		} finally {
+			MadamiraPool.shutdownShared();
+		}
+	}
+	
+	/**
+	 * Reads, classifies and writes tweets one chunk at a time.
+	 * @param tweetLocation Location of input file
+	 * @param predictionFile Location of output file
+	 * @param classifier Classifier to use
+	 * @param chunkSize Number of tweets per chunk, at least 1
+	 * @throws Exception If a file cannot be read or written, or Madamira input cannot be built
+	 */
+	private static void classifyInChunks(String tweetLocation, String predictionFile, SentimentClassifier classifier,
+			int chunkSize) throws Exception {
+		try (TweetReader reader = new TweetReader(tweetLocation);
+				PrintWriter writer = new PrintWriter(predictionFile, "UTF-8");) {
+			Vector<String> tweets = reader.next(chunkSize);
+			while (!tweets.isEmpty()) {
+				TweetIO.writeLabels(classifier.classify(tweets), writer);
+				tweets = reader.next(chunkSize);
+			}
 		}
 	}
 }
@@ -0,0 +1,167 @@
+package classification;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.Vector;
+
+import feature_extraction.Configuration;
+import feature_extraction.FeatureExtractor;
+import feature_extraction.SparseVector;
+import libsvm.svm;
+import libsvm.svm_model;
+import libsvm.svm_node;
+
+/**
+ * Classifies tweets from their in-memory features, without going through a LibSVM feature file.
+ * The model is loaded once when the classifier is created and stays in memory.
+ * Tweets can also be classified from their text: identical tweets are then only classified once,
+ * and the labels of tweets already classified by this classifier are reused.
+ */
+public class SentimentClassifier {
+	/**
+	 * Encoding of tweets when computing their hash.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * LibSVM model.
+	 */
+	private final svm_model model;
+
+	/**
+	 * Labels of the model, in the order of probability estimates.
+	 */
+	private final int[] labels;
+
+	/**
+	 * Labels of the tweets classified so far, by hash of their text, from least to most recently used.
+	 */
+	private final LinkedHashMap<UUID, Integer> predictions;
+
+	/**
+	 * Loads the model.
+	 * @param modelFile Location of LibSVM model
+	 * @throws IOException If the model cannot be read
+	 */
+	public SentimentClassifier(String modelFile) throws IOException {
+		model = svm.svm_load_model(modelFile);
+		if (model == null) {
+			throw new IOException("can't open model file " + modelFile);
+		}
+		labels = new int[svm.svm_get_nr_class(model)];
+		svm.svm_get_labels(model, labels);
+
+		final int capacity = Configuration.get().getPredictionCacheSize();
+		predictions = new LinkedHashMap<UUID, Integer>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<UUID, Integer> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Extracts the features of tweets and predicts their label, where 0 is negative, 1 is neutral and 2 is positive.
+	 * Tweets are identified by a hash of their text: only one copy of identical tweets goes through feature extraction,
+	 * and tweets classified in previous calls are not classified again (up to cache.predictions tweets are remembered).
+	 * @param tweets Vector of tweets
+	 * @return Predicted labels, in the same order as the tweets
+	 * @throws Exception If preprocessing fails or Madamira input cannot be built
+	 */
+	public int[] classify(Vector<String> tweets) throws Exception {
+		int[] result = new int[tweets.size()];
+
+		// tweets to classify, each distinct one once, with the positions of its copies
+		LinkedHashMap<UUID, Vector<Integer>> pending = new LinkedHashMap<UUID, Vector<Integer>>();
+		Vector<String> unique = new Vector<String>();
+		synchronized (predictions) {
+			for (int i = 0; i < tweets.size(); ++i) {
+				UUID key = UUID.nameUUIDFromBytes(tweets.get(i).getBytes(UTF8));
+				Vector<Integer> positions = pending.get(key);
+				if (positions == null) {
+					Integer label = predictions.get(key);
+					if (label != null) {
+						result[i] = label;
+						continue;
+					}
+					positions = new Vector<Integer>();
+					pending.put(key, positions);
+					unique.add(tweets.get(i));
+				}
+				positions.add(i);
+			}
+		}
+
+		if (!unique.isEmpty()) {
+			int[] predicted = predict(FeatureExtractor.extractFeatures(unique, false));
+			int j = 0;
+			synchronized (predictions) {
+				for (Map.Entry<UUID, Vector<Integer>> entry : pending.entrySet()) {
+					for (int i : entry.getValue()) {
+						result[i] = predicted[j];
+					}
+					predictions.put(entry.getKey(), predicted[j]);
+					++j;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the labels of the model, in the order of the columns returned by predictProbabilities.
+	 * @return Labels of the model
+	 */
+	public int[] getLabels() {
+		return labels.clone();
+	}
+
+	/**
+	 * Predicts the label of every tweet, where 0 is negative, 1 is neutral and 2 is positive.
+	 * @param features Vector of features, one per tweet
+	 * @return Predicted labels, in the same order as the features
+	 */
+	public int[] predict(Vector<SparseVector> features) {
+		int[] predictions = new int[features.size()];
+		for (int i = 0; i < predictions.length; ++i) {
+			predictions[i] = (int) svm.svm_predict(model, toNodes(features.elementAt(i)));
+		}
+		return predictions;
+	}
+
+	/**
+	 * Estimates the probability of every label for every tweet.
+	 * Columns are in the order given by getLabels.
+	 * @param features Vector of features, one per tweet
+	 * @return Probability estimates, one row per tweet
+	 * @throws IllegalStateException If the model was trained without probability estimates (svm-train -b 1)
+	 */
+	public double[][] predictProbabilities(Vector<SparseVector> features) {
+		if (svm.svm_check_probability_model(model) == 0) {
+			throw new IllegalStateException("Model was trained without probability estimates (svm-train -b 1)");
+		}
+		double[][] probabilities = new double[features.size()][labels.length];
+		for (int i = 0; i < probabilities.length; ++i) {
+			svm.svm_predict_probability(model, toNodes(features.elementAt(i)), probabilities[i]);
+		}
+		return probabilities;
+	}
+
+	/**
+	 * Converts features to LibSVM nodes, whose indices start at 1.
+	 * @param features Features of a tweet
+	 * @return LibSVM nodes
+	 */
+	private static svm_node[] toNodes(SparseVector features) {
+		svm_node[] nodes = new svm_node[features.size()];
+		for (int j = 0; j < nodes.length; ++j) {
+			nodes[j] = new svm_node();
+			nodes[j].index = features.getIndex(j) + 1;
+			nodes[j].value = features.getValue(j);
+		}
+		return nodes;
+	}
+}
@@ -1,8 +1,5 @@
 package classification;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.util.Vector;
 
@@ -14,14 +11,8 @@ public class TweetIO {
 	 */
 	public static Vector<String> readTweetsFromFile(String filename) {
 		Vector<String> tweets = new Vector<String>();
-		try {
-			String line = "";
-			BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream(filename), "UTF-8"));
-			while ((line = br.readLine()) != null && line.length()!=0) {
-				tweets.add(line);
-			}
-			br.close();
+		try (TweetReader reader = new TweetReader(filename);) {
+			tweets = reader.next(Integer.MAX_VALUE);
 		}
 		catch (IOException e) {
 			e.printStackTrace();
@@ -44,4 +35,30 @@ public class TweetIO {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Writes predicted labels to a file, one per line, in the same format as LibSVM predictions.
+	 * @param labels Predicted labels
+	 * @param filename Location of output file
+	 */
+	public static void writeLabelsToFile(int[] labels, String filename) {
+		try (PrintWriter writer = new PrintWriter(filename, "UTF-8");) {
+			writeLabels(labels, writer);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes predicted labels to an open output, one per line, in the same format as LibSVM predictions.
+	 * @param labels Predicted labels
+	 * @param writer Output to write to
+	 */
+	public static void writeLabels(int[] labels, PrintWriter writer) {
+		for (int label : labels) {
+			writer.println((double) label);
+		}
+		writer.flush();
+	}
 }
@@ -0,0 +1,60 @@
+package classification;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Vector;
+
+/**
+ * Reads tweets from a file, one per line, a chunk at a time.
+ * Reading stops at the end of the file or at the first empty line.
+ */
+public class TweetReader implements Closeable {
+	/**
+	 * Reader of the tweet file.
+	 */
+	private final BufferedReader reader;
+
+	/**
+	 * Whether the end of the tweets has been reached.
+	 */
+	private boolean finished = false;
+
+	/**
+	 * Opens a tweet file.
+	 * @param filename Input file location
+	 * @throws IOException If the file cannot be opened
+	 */
+	public TweetReader(String filename) throws IOException {
+		reader = new BufferedReader(new InputStreamReader(new FileInputStream(filename), "UTF-8"));
+	}
+
+	/**
+	 * Reads the next tweets.
+	 * @param maxTweets Maximum number of tweets to read
+	 * @return Vector of at most maxTweets tweets, empty if there are no more tweets
+	 * @throws IOException If the file cannot be read
+	 */
+	public Vector<String> next(int maxTweets) throws IOException {
+		Vector<String> tweets = new Vector<String>();
+		while (!finished && tweets.size() < maxTweets) {
+			String line = reader.readLine();
+			if (line == null || line.length() == 0) {
+				finished = true;
+			}
+			else {
+				tweets.add(line);
+			}
+		}
+		return tweets;
+	}
+
+	/**
+	 * Closes the tweet file.
+	 * @throws IOException If the file cannot be closed
+	 */
+	public void close() throws IOException {
+		reader.close();
+	}
+}
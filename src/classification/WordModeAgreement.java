@@ -0,0 +1,105 @@
+package classification;
+
+import java.util.Vector;
+
+import feature_extraction.Configuration;
+import feature_extraction.FeatureExtractor;
+import feature_extraction.MadamiraPool;
+import feature_extraction.SegmentAnalyzer;
+import feature_extraction.SegmentCache;
+import feature_extraction.SparseVector;
+
+/**
+ * Measures how much the word-level analysis changes predictions, compared to the analysis of whole tweets in context.
+ * Tweets are classified once in each mode, and the labels that agree are counted, along with the time taken by each mode.
+ * The segment cache is disabled during the measure, so that every tweet goes through the mode being measured.
+ * Resources and Madamira sessions are loaded before either mode is timed, so that neither timing includes loading them.
+ */
+public class WordModeAgreement {
+	/**
+	 * Number of tweets classified before the measure.
+	 */
+	private static final int WARM_UP_TWEETS = 20;
+
+	/**
+	 * Classifies tweets in both modes and prints their agreement.
+	 * Command-line arguments should be: "[location_of_tweets]", which defaults to sample_tweets.txt
+	 * @param args Input of main
+	 */
+	public static void main(String[] args) {
+		// must be set before the configuration is read
+		System.setProperty("oma.cache.segments", "0");
+		try {
+			String tweetLocation = args.length > 0 ? args[0] : "sample_tweets.txt";
+			Vector<String> tweets = TweetIO.readTweetsFromFile(tweetLocation);
+			SentimentClassifier classifier = new SentimentClassifier(Configuration.get().getModelFile());
+
+			// loads lexicons, n-grams, preprocessing threads and every Madamira session before the clocks start;
+			// in context, so that the word cache is left as it was
+			SegmentAnalyzer.setWordMode(false);
+			MadamiraPool.getInstance().warmUp();
+			Vector<String> warmUpTweets = new Vector<String>(tweets.subList(0, Math.min(WARM_UP_TWEETS, tweets.size())));
+			classifier.predict(FeatureExtractor.extractFeatures(warmUpTweets, false));
+
+			long start = System.currentTimeMillis();
+			int[] contextLabels = classifier.predict(FeatureExtractor.extractFeatures(tweets, false));
+			long contextTime = System.currentTimeMillis() - start;
+
+			SegmentAnalyzer.setWordMode(true);
+			SegmentCache words = SegmentCache.getSharedWords();
+			int cachedWords = words.size();
+			// the cache and the counters are shared, so only what changes during the word pass is reported
+			long wordsSent = SegmentAnalyzer.getWordsSent();
+			long wordHits = words.getHits();
+			start = System.currentTimeMillis();
+			Vector<SparseVector> features = FeatureExtractor.extractFeatures(tweets, false);
+			int[] wordLabels = classifier.predict(features);
+			long wordTime = System.currentTimeMillis() - start;
+			wordsSent = SegmentAnalyzer.getWordsSent() - wordsSent;
+			wordHits = words.getHits() - wordHits;
+
+			int[] labels = classifier.getLabels();
+			int[][] confusion = new int[labels.length][labels.length];
+			int agreements = 0;
+			for (int i = 0; i < tweets.size(); ++i) {
+				if (contextLabels[i] == wordLabels[i]) {
+					++agreements;
+				}
+				confusion[indexOf(labels, contextLabels[i])][indexOf(labels, wordLabels[i])]++;
+			}
+
+			System.out.println("Tweets: " + tweets.size());
+			System.out.println("Agreement: " + agreements + " (" + String.format("%.2f", 100.0 * agreements / Math.max(tweets.size(), 1)) + "%)");
+			System.out.println("Context analysis: " + contextTime + " ms");
+			System.out.println("Word analysis: " + wordTime + " ms, " + wordsSent + " words sent to Madamira, "
+					+ wordHits + " found in the word cache (" + cachedWords + " words cached beforehand)");
+			System.out.println("Labels in context (rows) against labels by word (columns):");
+			for (int i = 0; i < labels.length; ++i) {
+				StringBuilder row = new StringBuilder().append(labels[i]).append(':');
+				for (int j = 0; j < labels.length; ++j) {
+					row.append('\t').append(confusion[i][j]);
+				}
+				System.out.println(row);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			MadamiraPool.shutdownShared();
+		}
+	}
+
+	/**
+	 * Returns the position of a label among the labels of the model.
+	 * @param labels Labels of the model
+	 * @param label Label
+	 * @return Position of the label
+	 */
+	private static int indexOf(int[] labels, int label) {
+		for (int i = 0; i < labels.length; ++i) {
+			if (labels[i] == label) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown label " + label);
+	}
+}
@@ -0,0 +1,159 @@
+package feature_extraction;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Result of the morphological analysis of one segment (a tweet or a hashtag) by Madamira:
+ * the lemma of every word, and the number of words with each POS tag.
+ * A word that was not lemmatized counts as having the POS tag of the word before it, so the segment also keeps what is needed
+ * to put segments analyzed on their own back together in order: the words before the first lemmatized word, and the last POS tag.
+ * Instances are immutable, so that they can be cached and shared between tweets.
+ */
+public class AnalyzedSegment {
+	/**
+	 * Lemmas of the words, in order. Words that were not lemmatized are kept as they are.
+	 */
+	private final String[] lemmas;
+
+	/**
+	 * Distinct POS tags of the segment.
+	 */
+	private final String[] posTags;
+
+	/**
+	 * Number of words with each POS tag, in the order of posTags.
+	 */
+	private final int[] posCounts;
+
+	/**
+	 * Number of words before the first lemmatized word, which count as having the empty POS tag.
+	 */
+	private final int leadingUntagged;
+
+	/**
+	 * POS tag of the last lemmatized word, or null if no word was lemmatized.
+	 */
+	private final String lastTag;
+
+	/**
+	 * Creates an analyzed segment.
+	 * @param lemmas Lemmas of the words
+	 * @param posCounts HashMap from POS tag to the number of words with that POS tag
+	 * @param leadingUntagged Number of words before the first lemmatized word, counted in posCounts under the empty POS tag
+	 * @param lastTag POS tag of the last lemmatized word, or null if no word was lemmatized
+	 */
+	public AnalyzedSegment(Vector<String> lemmas, HashMap<String, Integer> posCounts, int leadingUntagged, String lastTag) {
+		this.lemmas = lemmas.toArray(new String[lemmas.size()]);
+		this.leadingUntagged = leadingUntagged;
+		this.lastTag = lastTag;
+		posTags = new String[posCounts.size()];
+		this.posCounts = new int[posCounts.size()];
+		int i = 0;
+		for (Map.Entry<String, Integer> entry : posCounts.entrySet()) {
+			posTags[i] = entry.getKey();
+			this.posCounts[i] = entry.getValue();
+			++i;
+		}
+	}
+
+	/**
+	 * Creates an analyzed segment from its arrays, which are not copied.
+	 * @param lemmas Lemmas of the words
+	 * @param posTags Distinct POS tags
+	 * @param posCounts Number of words with each POS tag
+	 * @param leadingUntagged Number of words before the first lemmatized word
+	 * @param lastTag POS tag of the last lemmatized word, or null
+	 */
+	AnalyzedSegment(String[] lemmas, String[] posTags, int[] posCounts, int leadingUntagged, String lastTag) {
+		this.lemmas = lemmas;
+		this.posTags = posTags;
+		this.posCounts = posCounts;
+		this.leadingUntagged = leadingUntagged;
+		this.lastTag = lastTag;
+	}
+
+	/**
+	 * Returns the lemmas of the words.
+	 * @return New Vector of lemmas
+	 */
+	public Vector<String> getLemmas() {
+		Vector<String> result = new Vector<String>(lemmas.length);
+		for (String lemma : lemmas) {
+			result.add(lemma);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of words with each POS tag.
+	 * @return New HashMap from POS tag to number of words
+	 */
+	public HashMap<String, Integer> getPosCounts() {
+		HashMap<String, Integer> result = new HashMap<String, Integer>();
+		for (int i = 0; i < posTags.length; ++i) {
+			result.put(posTags[i], posCounts[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of words of the segment.
+	 * @return Number of words
+	 */
+	public int size() {
+		return lemmas.length;
+	}
+
+	/**
+	 * Returns the lemma of a word.
+	 * @param index Index of the word
+	 * @return Lemma
+	 */
+	String getLemma(int index) {
+		return lemmas[index];
+	}
+
+	/**
+	 * Returns the number of distinct POS tags.
+	 * @return Number of POS tags
+	 */
+	int getNbOfPosTags() {
+		return posTags.length;
+	}
+
+	/**
+	 * Returns a distinct POS tag.
+	 * @param index Index of the POS tag, below getNbOfPosTags()
+	 * @return POS tag
+	 */
+	String getPosTag(int index) {
+		return posTags[index];
+	}
+
+	/**
+	 * Returns the number of words with a POS tag.
+	 * @param index Index of the POS tag, below getNbOfPosTags()
+	 * @return Number of words
+	 */
+	int getPosCount(int index) {
+		return posCounts[index];
+	}
+
+	/**
+	 * Returns the number of words before the first lemmatized word, counted under the empty POS tag.
+	 * When the segment follows other words, these words take the POS tag of the word before them instead.
+	 * @return Number of words
+	 */
+	int getLeadingUntagged() {
+		return leadingUntagged;
+	}
+
+	/**
+	 * Returns the POS tag of the last lemmatized word, which words after the segment take if they are not lemmatized.
+	 * @return POS tag, or null if no word was lemmatized
+	 */
+	String getLastTag() {
+		return lastTag;
+	}
+}
@@ -0,0 +1,314 @@
+package feature_extraction;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Properties;
+
+/**
+ * Locations of resources and intermediate files, read once from a properties file.
+ * The file is "oma.properties" in the working directory, or the one given by the system property "oma.config".
+ * Every setting can also be overridden by a system property of the same name prefixed by "oma." (e.g. -Doma.resources.dir=...).
+ * Settings:
+ * - resources.dir: directory of lexicons, n-grams and model (default: Resources)
+ * - intermediate.dir: directory of the Madamira input template in.xml (default: Intermediate)
+ * - model.file: LibSVM model (default: Model/rbfc+2g-4.txt under the resources directory)
+ * - madamira.minimal: whether Madamira should only output the lemmas and POS tags used by the features (default: false)
+ * - madamira.sessions: number of Madamira sessions that analyze a batch in parallel
+ * (default: one per processor, as long as the maximum heap size leaves 2.5 GB for each)
+ * - madamira.batch: maximum number of segments sent to Madamira at once, which bounds the memory taken by its output (default: 2000)
+ * - cache.segments: number of Madamira analyses of segments kept in memory, 0 to disable the cache (default: 20000)
+ * - cache.file: file the cache of Madamira analyses is loaded from and saved to (default: none, the cache is not saved)
+ * - analysis.mode: "segment" to analyze every tweet and hashtag in context, or "word" to analyze words out of context
+ * and cache them, which is faster but less accurate (default: segment)
+ * - cache.words: number of Madamira analyses of words kept in memory in word mode (default: 200000)
+ * - cache.words.file: file the cache of words is loaded from and saved to (default: none)
+ * - cache.predictions: number of labels of already classified tweets remembered by a classifier, 0 to disable (default: 100000)
+ * Relative paths are resolved against the working directory. A number or flag that is malformed or out of range is rejected
+ * with an IllegalArgumentException naming the setting, instead of falling back to a default.
+ */
+public class Configuration {
+	/**
+	 * System property that gives the location of the properties file.
+	 */
+	public static final String CONFIG_PROPERTY = "oma.config";
+
+	/**
+	 * Default location of the properties file.
+	 */
+	public static final String DEFAULT_CONFIG_FILE = "oma.properties";
+
+	/**
+	 * Configuration of this process, loaded on first use.
+	 */
+	private static Configuration instance = null;
+
+	/**
+	 * Directory of lexicons, n-grams and model.
+	 */
+	private final File resourcesDir;
+
+	/**
+	 * Directory of the Madamira input template.
+	 */
+	private final File intermediateDir;
+
+	/**
+	 * LibSVM model.
+	 */
+	private final File modelFile;
+
+	/**
+	 * Whether Madamira should only output lemmas and POS tags.
+	 */
+	private final boolean minimalAnalysis;
+
+	/**
+	 * Number of Madamira sessions, or 0 to choose it from processors and memory.
+	 */
+	private final int madamiraSessions;
+
+	/**
+	 * Maximum number of segments sent to Madamira at once.
+	 */
+	private final int madamiraBatchSize;
+
+	/**
+	 * Maximum number of segments in the cache of Madamira analyses.
+	 */
+	private final int segmentCacheSize;
+
+	/**
+	 * File of the cache of Madamira analyses, or null if it is not saved.
+	 */
+	private final String segmentCacheFile;
+
+	/**
+	 * Whether words are analyzed out of context.
+	 */
+	private final boolean wordAnalysis;
+
+	/**
+	 * Maximum number of words in the cache of Madamira analyses of words.
+	 */
+	private final int wordCacheSize;
+
+	/**
+	 * File of the cache of Madamira analyses of words, or null if it is not saved.
+	 */
+	private final String wordCacheFile;
+
+	/**
+	 * Maximum number of labels remembered by a classifier.
+	 */
+	private final int predictionCacheSize;
+
+	/**
+	 * Creates a configuration from settings.
+	 * @param properties Settings, without the "oma." prefix
+	 */
+	public Configuration(Properties properties) {
+		resourcesDir = new File(properties.getProperty("resources.dir", "Resources"));
+		intermediateDir = new File(properties.getProperty("intermediate.dir", "Intermediate"));
+		String model = properties.getProperty("model.file");
+		modelFile = model != null ? new File(model) : new File(new File(resourcesDir, "Model"), "rbfc+2g-4.txt");
+
+		minimalAnalysis = getBoolean(properties, "madamira.minimal", false);
+		madamiraSessions = getInt(properties, "madamira.sessions", 0, 0);
+		madamiraBatchSize = getInt(properties, "madamira.batch", 2000, 1);
+		segmentCacheSize = getInt(properties, "cache.segments", 20000, 0);
+		segmentCacheFile = properties.getProperty("cache.file");
+
+		String mode = properties.getProperty("analysis.mode", "segment").trim();
+		if (!mode.equals("segment") && !mode.equals("word")) {
+			throw new IllegalArgumentException("analysis.mode must be segment or word, not " + mode);
+		}
+		wordAnalysis = mode.equals("word");
+		wordCacheSize = getInt(properties, "cache.words", 200000, 0);
+		wordCacheFile = properties.getProperty("cache.words.file");
+		predictionCacheSize = getInt(properties, "cache.predictions", 100000, 0);
+	}
+
+	/**
+	 * Reads an integer setting.
+	 * @param properties Settings
+	 * @param name Name of the setting
+	 * @param defaultValue Value if the setting is not given
+	 * @param minimum Smallest allowed value
+	 * @return Value of the setting
+	 * @throws IllegalArgumentException If the setting is not an integer or is below the minimum
+	 */
+	private static int getInt(Properties properties, String name, int defaultValue, int minimum) {
+		String text = properties.getProperty(name);
+		if (text == null) {
+			return defaultValue;
+		}
+		int value;
+		try {
+			value = Integer.parseInt(text.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(name + " must be an integer, not " + text);
+		}
+		if (value < minimum) {
+			throw new IllegalArgumentException(name + " must be at least " + minimum + ", not " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a boolean setting.
+	 * @param properties Settings
+	 * @param name Name of the setting
+	 * @param defaultValue Value if the setting is not given
+	 * @return Value of the setting
+	 * @throws IllegalArgumentException If the setting is neither true nor false
+	 */
+	private static boolean getBoolean(Properties properties, String name, boolean defaultValue) {
+		String text = properties.getProperty(name);
+		if (text == null) {
+			return defaultValue;
+		}
+		if (!text.trim().equalsIgnoreCase("true") && !text.trim().equalsIgnoreCase("false")) {
+			throw new IllegalArgumentException(name + " must be true or false, not " + text);
+		}
+		return Boolean.parseBoolean(text.trim());
+	}
+
+	/**
+	 * Returns the configuration of this process, reading the properties file on first use.
+	 * A missing properties file is not an error: defaults and system properties are used.
+	 * @return Configuration
+	 */
+	public static synchronized Configuration get() {
+		if (instance == null) {
+			Properties properties = new Properties();
+			File file = new File(System.getProperty(CONFIG_PROPERTY, DEFAULT_CONFIG_FILE));
+			if (file.exists()) {
+				try {
+					Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+					try {
+						properties.load(reader);
+					}
+					finally {
+						reader.close();
+					}
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			for (String name : System.getProperties().stringPropertyNames()) {
+				if (name.startsWith("oma.") && !name.equals(CONFIG_PROPERTY)) {
+					properties.setProperty(name.substring(4), System.getProperty(name));
+				}
+			}
+			instance = new Configuration(properties);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the location of a resource.
+	 * @param path Path of the resource within the resources directory, one element per directory level
+	 * @return Location of the resource
+	 */
+	public String getResource(String... path) {
+		File file = resourcesDir;
+		for (String element : path) {
+			file = new File(file, element);
+		}
+		return file.getPath();
+	}
+
+	/**
+	 * Returns the location of the Madamira input file whose configuration is used as a template.
+	 * @return Location of the template
+	 */
+	public String getTemplate() {
+		return new File(intermediateDir, "in.xml").getPath();
+	}
+
+	/**
+	 * Returns the location of the LibSVM model.
+	 * @return Location of the model
+	 */
+	public String getModelFile() {
+		return modelFile.getPath();
+	}
+
+	/**
+	 * Indicates whether Madamira should only output the lemmas and POS tags used by the features,
+	 * instead of everything requested by the template.
+	 * @return Whether the minimal analysis is requested
+	 */
+	public boolean isMinimalAnalysis() {
+		return minimalAnalysis;
+	}
+
+	/**
+	 * Returns the number of Madamira sessions that analyze a batch in parallel.
+	 * @return Number of sessions, or 0 if it should follow available processors and memory
+	 */
+	public int getMadamiraSessions() {
+		return madamiraSessions;
+	}
+
+	/**
+	 * Returns the maximum number of segments sent to Madamira at once.
+	 * Larger inputs are analyzed in several batches, and the output of a batch is dropped once its lemmas and POS tags are read.
+	 * @return Number of segments
+	 */
+	public int getMadamiraBatchSize() {
+		return madamiraBatchSize;
+	}
+
+	/**
+	 * Returns the maximum number of segments in the cache of Madamira analyses.
+	 * @return Number of segments, 0 if the cache is disabled
+	 */
+	public int getSegmentCacheSize() {
+		return segmentCacheSize;
+	}
+
+	/**
+	 * Returns the location of the file the cache of Madamira analyses is saved to.
+	 * @return Location of the file, or null if the cache is not saved
+	 */
+	public String getSegmentCacheFile() {
+		return segmentCacheFile;
+	}
+
+	/**
+	 * Indicates whether words are analyzed out of context, one by one, instead of whole tweets and hashtags.
+	 * @return Whether the word-level analysis is used
+	 */
+	public boolean isWordAnalysis() {
+		return wordAnalysis;
+	}
+
+	/**
+	 * Returns the maximum number of words in the cache of Madamira analyses of words.
+	 * @return Number of words
+	 */
+	public int getWordCacheSize() {
+		return wordCacheSize;
+	}
+
+	/**
+	 * Returns the location of the file the cache of Madamira analyses of words is saved to.
+	 * @return Location of the file, or null if the cache is not saved
+	 */
+	public String getWordCacheFile() {
+		return wordCacheFile;
+	}
+
+	/**
+	 * Returns the maximum number of labels of already classified tweets remembered by a classifier.
+	 * @return Number of labels, 0 if labels are not remembered
+	 */
+	public int getPredictionCacheSize() {
+		return predictionCacheSize;
+	}
+}
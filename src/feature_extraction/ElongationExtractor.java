@@ -7,10 +7,11 @@ public class ElongationExtractor {
 	 * @return Normalized word
 	 */
 	public static String removeElongation(String word){
-		String cleaned = "";
+		String cleaned;
 		if(word.length() > 3){
+			StringBuilder builder = new StringBuilder(word.length());
 			char prev = word.charAt(0);
-			cleaned+=prev;
+			builder.append(prev);
 			int count = 0;
 			char curr;
 			for(int i = 1; i < word.length(); i++){
@@ -22,10 +23,11 @@ public class ElongationExtractor {
 					count = 0;
 				}
 				if(count <= 2 ){
-					cleaned+=curr;
+					builder.append(curr);
 				}
 				prev = curr;
 			}
+			cleaned = builder.toString();
 		}
 		else{
 			cleaned = word;
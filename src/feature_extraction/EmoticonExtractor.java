@@ -2,11 +2,8 @@ package feature_extraction;
 
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class EmoticonExtractor {
 	/**
@@ -50,6 +47,11 @@ public class EmoticonExtractor {
 	 * Public hashset of all emoticons.
 	 */
 	public static final Set<String> allEmoticons = getAllEmoticons();
+	
+	/**
+	 * Trie of all emoticons, preferring them in the iteration order of allEmoticons.
+	 */
+	private static final EmoticonTrie trie = new EmoticonTrie(allEmoticons);
 			
 	/**
 	 * Given an emoticon, returns its polarity.
@@ -68,29 +70,22 @@ public class EmoticonExtractor {
 		}
 	}
 	
+	/**
+	 * Finds all emoticons of a tweet, with their polarities, and replaces them by an Arabic token, in a single pass.
+	 * @param tweet Input tweet
+	 * @return Emoticons found, their polarities and the normalized tweet
+	 */
+	public static EmoticonMatches extract(String tweet) {
+		return trie.extract(tweet);
+	}
+	
 	/**
 	 * Extracts emoticons from given tweet and returns them in a vector.
 	 * @param tweet Input tweet
 	 * @return Vector of emoticons in the tweet
 	 */
 	public static Vector<String> getEmoticons(String tweet) {		
-		Vector<String> emoticons = new Vector<String>();
-		StringBuilder regex = new StringBuilder();
-		regex.append("(");
-		Iterator<String> iterator = allEmoticons.iterator();
-		regex.append(Pattern.quote(iterator.next()));
-		while (iterator.hasNext())
-		{
-		    regex.append('|');
-		    regex.append(Pattern.quote(iterator.next()));
-		}
-		regex.append(")");
-		Pattern pattern = Pattern.compile(regex.toString());
-		Matcher matcher = pattern.matcher(tweet);
-		while(matcher.find()) {
-		   emoticons.addElement(matcher.group());  
-		}
-		return emoticons;
+		return trie.extract(tweet).getEmoticons();
 	}
 
 	/**
@@ -99,28 +94,7 @@ public class EmoticonExtractor {
 	 * @return Normalized tweet
 	 */
 	public static String normalizeAllEmoticons(String tweet) {
-		String fixedTweet = "";
-		StringBuilder regex = new StringBuilder();
-		regex.append("(");
-		Iterator<String> iterator = allEmoticons.iterator();
-		regex.append(Pattern.quote(iterator.next()));
-		while (iterator.hasNext())
-		{
-		    regex.append('|');
-		    regex.append(Pattern.quote(iterator.next()));
-		}
-		regex.append(")");
-		Pattern pattern = Pattern.compile(regex.toString());
-		Matcher matcher = pattern.matcher(tweet);
-		int end = 0;
-
-		while(matcher.find()) {
-		    fixedTweet = fixedTweet + tweet.substring(end, matcher.start()) + " ايموتيكونتوكن ";
-		    end = matcher.end();
-		}
-		fixedTweet = fixedTweet + tweet.substring(end);
-
-		return fixedTweet;
+		return trie.extract(tweet).getNormalized();
 	}
 	
 	/**
@@ -0,0 +1,58 @@
+package feature_extraction;
+import java.util.Vector;
+
+/**
+ * Result of extracting emoticons from a tweet: the emoticons found, their polarities, and the normalized tweet.
+ */
+public class EmoticonMatches {
+	/**
+	 * Emoticons in the order in which they appear.
+	 */
+	private final Vector<String> emoticons;
+
+	/**
+	 * Polarity of each emoticon.
+	 */
+	private final Vector<Polarity> polarities;
+
+	/**
+	 * Tweet in which every emoticon is replaced by an Arabic token.
+	 */
+	private final String normalized;
+
+	/**
+	 * Creates the result of an extraction.
+	 * @param emoticons Emoticons in the order in which they appear
+	 * @param polarities Polarity of each emoticon
+	 * @param normalized Normalized tweet
+	 */
+	public EmoticonMatches(Vector<String> emoticons, Vector<Polarity> polarities, String normalized) {
+		this.emoticons = emoticons;
+		this.polarities = polarities;
+		this.normalized = normalized;
+	}
+
+	/**
+	 * Returns the emoticons in the order in which they appear.
+	 * @return Vector of emoticons
+	 */
+	public Vector<String> getEmoticons() {
+		return emoticons;
+	}
+
+	/**
+	 * Returns the polarity of each emoticon.
+	 * @return Vector of polarities
+	 */
+	public Vector<Polarity> getPolarities() {
+		return polarities;
+	}
+
+	/**
+	 * Returns the tweet in which every emoticon is replaced by an Arabic token.
+	 * @return Normalized tweet
+	 */
+	public String getNormalized() {
+		return normalized;
+	}
+}
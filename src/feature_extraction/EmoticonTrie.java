@@ -0,0 +1,118 @@
+package feature_extraction;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Character trie of emoticons, used to find and normalize all emoticons of a tweet in a single pass.
+ * Matches are the same as those of a regular expression alternation of the emoticons in the given order:
+ * the tweet is scanned from left to right, and when several emoticons start at the same position,
+ * the one that comes first in the order is chosen.
+ */
+public class EmoticonTrie {
+	/**
+	 * Token that replaces emoticons in normalized tweets.
+	 */
+	private static final String TOKEN = " ايموتيكونتوكن ";
+
+	/**
+	 * Children of this node, by character.
+	 */
+	private final HashMap<Character, EmoticonTrie> children = new HashMap<Character, EmoticonTrie>();
+
+	/**
+	 * Emoticon that ends at this node, or null if none does.
+	 */
+	private String emoticon = null;
+
+	/**
+	 * Polarity of the emoticon that ends at this node.
+	 */
+	private Polarity polarity = null;
+
+	/**
+	 * Position of the emoticon that ends at this node in the order of emoticons.
+	 */
+	private int rank = -1;
+
+	/**
+	 * Creates an empty node.
+	 */
+	private EmoticonTrie() {
+	}
+
+	/**
+	 * Builds the trie of the given emoticons.
+	 * @param emoticons Emoticons, in the order in which they should be preferred
+	 */
+	public EmoticonTrie(Collection<String> emoticons) {
+		int rank = 0;
+		for (String e : emoticons) {
+			EmoticonTrie node = this;
+			for (int i = 0; i < e.length(); ++i) {
+				EmoticonTrie child = node.children.get(e.charAt(i));
+				if (child == null) {
+					child = new EmoticonTrie();
+					node.children.put(e.charAt(i), child);
+				}
+				node = child;
+			}
+			if (node.emoticon == null) {
+				node.emoticon = e;
+				node.polarity = EmoticonExtractor.polarity(e);
+				node.rank = rank;
+			}
+			++rank;
+		}
+	}
+
+	/**
+	 * Finds all emoticons of a tweet and replaces each of them by an Arabic token, in a single pass.
+	 * @param tweet Input tweet
+	 * @return Emoticons found, their polarities and the normalized tweet
+	 */
+	public EmoticonMatches extract(String tweet) {
+		Vector<String> emoticons = new Vector<String>();
+		Vector<Polarity> polarities = new Vector<Polarity>();
+		StringBuilder normalized = null;
+
+		int length = tweet.length();
+		int copied = 0;
+		int i = 0;
+		while (i < length) {
+			EmoticonTrie match = null;
+			int matchEnd = i;
+			EmoticonTrie node = this;
+			for (int j = i; j < length; ++j) {
+				node = node.children.get(tweet.charAt(j));
+				if (node == null) {
+					break;
+				}
+				if (node.emoticon != null && (match == null || node.rank < match.rank)) {
+					match = node;
+					matchEnd = j + 1;
+				}
+			}
+
+			if (match == null) {
+				++i;
+			}
+			else {
+				if (normalized == null) {
+					normalized = new StringBuilder(length + 16);
+				}
+				emoticons.addElement(match.emoticon);
+				polarities.addElement(match.polarity);
+				normalized.append(tweet, copied, i).append(TOKEN);
+				copied = matchEnd;
+				i = matchEnd;
+			}
+		}
+
+		String normalizedTweet = tweet;
+		if (normalized != null) {
+			normalizedTweet = normalized.append(tweet, copied, length).toString();
+		}
+		return new EmoticonMatches(emoticons, polarities, normalizedTweet);
+	}
+}
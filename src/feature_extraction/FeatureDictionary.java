@@ -0,0 +1,181 @@
+package feature_extraction;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ordered dictionary of n-gram features, saved next to the model.
+ * Every n-gram feature set has a name, and every n-gram in it has a fixed column within the set.
+ * Since the columns are saved, they no longer depend on the iteration order of a HashSet.
+ * File format (big-endian):
+ * - magic number and version
+ * - number of feature sets
+ * - for every set: its name, its number of n-grams, then its n-grams in column order
+ * Strings are written as their length in bytes followed by their UTF-8 bytes.
+ */
+public class FeatureDictionary {
+	/**
+	 * Magic number at the beginning of dictionary files.
+	 */
+	private static final int MAGIC = 0x4F4D4146;
+
+	/**
+	 * Version of the file format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Encoding of n-grams in dictionary files.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * HashMaps from n-grams to their column, for every feature set.
+	 */
+	private final HashMap<String, HashMap<String, Integer>> sets;
+
+	/**
+	 * Creates a dictionary from already indexed feature sets.
+	 * @param sets HashMaps from n-grams to their column, for every feature set
+	 */
+	private FeatureDictionary(HashMap<String, HashMap<String, Integer>> sets) {
+		this.sets = sets;
+	}
+
+	/**
+	 * Returns the HashMap from n-grams to their column for a feature set.
+	 * @param name Name of the feature set
+	 * @return HashMap from n-grams to their column (empty if the set does not exist)
+	 */
+	public HashMap<String, Integer> getIndex(String name) {
+		HashMap<String, Integer> index = sets.get(name);
+		return index == null ? new HashMap<String, Integer>() : index;
+	}
+
+	/**
+	 * Loads a dictionary file with a single memory-mapped read.
+	 * @param filename Location of the dictionary
+	 * @return Loaded dictionary
+	 * @throws IOException If the file cannot be read or is not a dictionary
+	 */
+	public static FeatureDictionary load(String filename) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException(filename + " is not a feature dictionary");
+			}
+			int nbOfSets = buffer.getInt();
+			HashMap<String, HashMap<String, Integer>> sets = new HashMap<String, HashMap<String, Integer>>();
+			for (int i = 0; i < nbOfSets; ++i) {
+				String name = readString(buffer);
+				int size = buffer.getInt();
+				HashMap<String, Integer> index = new HashMap<String, Integer>(size * 2);
+				for (int column = 0; column < size; ++column) {
+					index.put(readString(buffer), column);
+				}
+				sets.put(name, index);
+			}
+			return new FeatureDictionary(sets);
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Assigns every n-gram its position in the given collection as column, and saves the result.
+	 * @param ngrams Feature sets by name, each in column order
+	 * @param filename Location of the dictionary
+	 * @return Compiled dictionary
+	 * @throws IOException If the file cannot be written
+	 */
+	public static FeatureDictionary compile(LinkedHashMap<String, ? extends Collection<String>> ngrams, String filename)
+			throws IOException {
+		HashMap<String, HashMap<String, Integer>> sets = new HashMap<String, HashMap<String, Integer>>();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(ngrams.size());
+			for (Map.Entry<String, ? extends Collection<String>> set : ngrams.entrySet()) {
+				HashMap<String, Integer> index = new HashMap<String, Integer>(set.getValue().size() * 2);
+				writeString(out, set.getKey());
+				out.writeInt(set.getValue().size());
+				int column = 0;
+				for (String ngram : set.getValue()) {
+					writeString(out, ngram);
+					index.put(ngram, column++);
+				}
+				sets.put(set.getKey(), index);
+			}
+		}
+		finally {
+			out.close();
+		}
+		return new FeatureDictionary(sets);
+	}
+
+	/**
+	 * Loads a dictionary if it exists, otherwise compiles it from the given feature sets.
+	 * @param filename Location of the dictionary
+	 * @param ngrams Feature sets by name, each in column order, only loaded if the dictionary does not exist yet
+	 * @return Dictionary
+	 */
+	public static FeatureDictionary loadOrCompile(String filename,
+			LazyResource<? extends LinkedHashMap<String, ? extends Collection<String>>> ngrams) {
+		try {
+			if (new File(filename).exists()) {
+				return load(filename);
+			}
+			System.out.println("Feature dictionary " + filename + " not found, compiling it from n-gram files.");
+			return compile(ngrams.get(), filename);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			HashMap<String, HashMap<String, Integer>> sets = new HashMap<String, HashMap<String, Integer>>();
+			for (Map.Entry<String, ? extends Collection<String>> set : ngrams.get().entrySet()) {
+				HashMap<String, Integer> index = new HashMap<String, Integer>();
+				for (String ngram : set.getValue()) {
+					index.put(ngram, index.size());
+				}
+				sets.put(set.getKey(), index);
+			}
+			return new FeatureDictionary(sets);
+		}
+	}
+
+	/**
+	 * Reads a String from a dictionary file.
+	 * @param buffer Mapped dictionary file
+	 * @return String read
+	 */
+	private static String readString(MappedByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * Writes a String to a dictionary file.
+	 * @param out Dictionary file
+	 * @param str String to write
+	 * @throws IOException If the String cannot be written
+	 */
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(UTF8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+}
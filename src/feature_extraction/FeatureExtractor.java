@@ -1,114 +1,176 @@
 package feature_extraction;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 //import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 public class FeatureExtractor {
+	/**
+	 * Number of threads used for preprocessing.
+	 */
+	private static int preprocessingThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Thread pool used for preprocessing, created on first use.
+	 */
+	private static ExecutorService preprocessingPool = null;
+
+	/**
+	 * Time after which an idle preprocessing thread stops, in seconds.
+	 */
+	private static final long PREPROCESSING_KEEP_ALIVE = 60;
+
+	/**
+	 * Sets the number of threads used to preprocess tweets. Defaults to the number of available processors.
+	 * Jobs already running keep the pool they started with, which is never shut down: its threads stop once they are idle.
+	 * @param threads Number of threads
+	 */
+	public static synchronized void setPreprocessingThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of preprocessing threads must be positive");
+		}
+		preprocessingPool = null;
+		preprocessingThreads = threads;
+	}
+
+	/**
+	 * Returns the thread pool used for preprocessing, creating it if needed.
+	 * The pool is shared by all jobs running at the same time.
+	 * Its threads are daemon threads, so that they do not keep the JVM alive, and they stop when idle.
+	 * @return Preprocessing thread pool
+	 */
+	private static synchronized ExecutorService getPreprocessingPool() {
+		if (preprocessingPool == null) {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(preprocessingThreads, preprocessingThreads,
+					PREPROCESSING_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "preprocessing");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			pool.allowCoreThreadTimeOut(true);
+			preprocessingPool = pool;
+		}
+		return preprocessingPool;
+	}
+
 	/**
 	 * Extracts features from input data and generates a feature file for LibSVM classification.
 	 * @param outputFilename Location of feature file
 	 * @param data LinkedHashMap from tweets to their label. If the label is unknown, any value can be used.
 	 * @param onlyNgrams Whether only n-gram features are desired, or all features
 	 */
-	@SuppressWarnings("unchecked")
 	public static void generateFeatureFile(String outputFilename, Vector<String> data, boolean onlyNgrams) {
 		try {
-			Vector<HashMap<String, Object>> preprocessed = new Vector<HashMap<String, Object>>();
-			Vector<Integer> labels = new Vector<Integer>();
+			writeFeatureFile(outputFilename, extractFeatures(data, onlyNgrams));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Extracts features from input data and returns them in memory, one sparse vector per tweet.
+	 * @param data Vector of tweets
+	 * @param onlyNgrams Whether only n-gram features are desired, or all features
+	 * @return Vector of features, in the same order as the tweets
+	 * @throws Exception If preprocessing fails or Madamira input cannot be built
+	 */
+	@SuppressWarnings("unchecked")
+	public static Vector<SparseVector> extractFeatures(Vector<String> data, boolean onlyNgrams) throws Exception {
+		if (onlyNgrams) {
+			// lexicons loaded by an earlier job with all features are not needed anymore
+			ResourceRegistry.evictAllExcept(ResourceRegistry.getResources(true));
+		}
+		// resources load while tweets are preprocessed and analyzed; nothing is started once they are loaded
+		ResourceRegistry.preload(ResourceRegistry.getResources(onlyNgrams));
+		
+		Vector<PreprocessedTweet> preprocessed = Preprocessor.preprocessAll(data, getPreprocessingPool());
+		
+		int nbOfTweets = data.size();
 			
-			int nbOfTweets = data.size();
+		HashMap<String, Object> outputXML = SegmentAnalyzer.analyze(preprocessed, !onlyNgrams);
 			
-			for (String tweet : data)
-			{
-				preprocessed.add(Preprocessor.preprocess(tweet));
-				labels.add(0);
+		Vector<Vector<String>> lemmatizedTweets = (Vector<Vector<String>>)(outputXML.get("lemmas"));
+		Vector<HashMap<String, Integer>> posTags = (Vector<HashMap<String, Integer>>)(outputXML.get("pos"));
+		Vector<Vector<Vector<String>>> hashtags = ((Vector<Vector<Vector<String>>>)(outputXML.get("hashtags")));
+			
+		Vector<SparseVector> features = new Vector<SparseVector>();
+		for(int i = 0; i < nbOfTweets; i++){
+			if (onlyNgrams) {
+				String tweet = join(lemmatizedTweets.elementAt(i));
+				SparseVector wordAndCharNgrams = FeatureExtractor.outputNgramFeatures(tweet);
+				wordAndCharNgrams.append(FeatureExtractor.outputCharNgramFeatures(tweet));
+				features.addElement(wordAndCharNgrams);
 			}
-				
-			String input = "Intermediate\\in.xml";
-			String output = "Intermediate\\out.xml";
-				
-			XMLParser.inputXML(preprocessed,input,!onlyNgrams);
-			Madamira.runMadamira(input, output);
-			HashMap<String, Object> outputXML = XMLParser.outputXML(output, preprocessed,!onlyNgrams);
-				
-			Vector<Vector<String>> lemmatizedTweets = (Vector<Vector<String>>)(outputXML.get("lemmas"));
-			Vector<HashMap<String, Integer>> posTags = (Vector<HashMap<String, Integer>>)(outputXML.get("pos"));
-			Vector<Vector<Vector<String>>> hashtags = ((Vector<Vector<Vector<String>>>)(outputXML.get("hashtags")));
-				
-			Vector<Vector<Integer>> features = new Vector<Vector<Integer>>();
-			for(int i = 0; i < nbOfTweets; i++){
-				if (onlyNgrams) {
-					String tweet = "";
-					for (String word : lemmatizedTweets.elementAt(i)) {
-						tweet += word + " ";
-					}
-					Vector<Integer> wordAndCharNgrams = FeatureExtractor.outputNgramFeatures(tweet);
-					wordAndCharNgrams.addAll(FeatureExtractor.outputCharNgramFeatures(tweet));
-					features.addElement(wordAndCharNgrams);
-				}
-				else {
-					features.addElement(FeatureExtractor.outputFeatures(preprocessed.get(i), 
-						posTags.get(i), lemmatizedTweets.get(i), hashtags.get(i)));
-				}
+			else {
+				features.addElement(FeatureExtractor.outputFeatures(preprocessed.get(i), 
+					posTags.get(i), lemmatizedTweets.get(i), hashtags.get(i)));
 			}
-				
-			PrintWriter writer = new PrintWriter(outputFilename, "UTF-8");
+		}
+		return features;
+	}
+	
+	/**
+	 * Writes features to a feature file for LibSVM classification, with 0 as label for every tweet.
+	 * @param outputFilename Location of feature file
+	 * @param features Vector of features, one per tweet
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void writeFeatureFile(String outputFilename, Vector<SparseVector> features) throws IOException {
+		PrintWriter writer = new PrintWriter(outputFilename, "UTF-8");
+		
+		for(SparseVector tweetFeatures : features){
+			writer.print("0 ");
 			
-			int nbOfFeatures = features.elementAt(0).size();
-
-			for(int i=0; i<nbOfTweets; ++i){
-				Vector<Integer> tweetFeatures = features.elementAt(i);
-				writer.print("0 ");
-				
-				for(int j=0; j<nbOfFeatures; ++j){
-					Integer f = tweetFeatures.elementAt(j);
-					if (f>0) {
-						writer.print((j+1)+":"+f+" ");
-					}
+			for(int j=0; j<tweetFeatures.size(); ++j){
+				int f = tweetFeatures.getValue(j);
+				if (f>0) {
+					writer.print((tweetFeatures.getIndex(j)+1)+":"+f+" ");
 				}
-				writer.println();
 			}
-			writer.close();
-		}
-		catch (Exception e) {
-			e.printStackTrace();
+			writer.println();
 		}
+		writer.close();
 	}
 	
 	/**
-	 * Given the result of preprocessing and Madamira, finds and outputs all features of a given tweet in a Vector of Integers.
+	 * Given the result of preprocessing and Madamira, finds and outputs all features of a given tweet in a sparse vector.
 	 * @param preprocessed Output of preprocessing
 	 * @param posTags POS tags as parsed from Madamira output
 	 * @param lemmatizedTweet Lemmatized tweet as parsed from Madamira output
 	 * @param hashtags Lemmatized hashtags as parsed from Madamira output
-	 * @return Vector of features
+	 * @return Sparse vector of features
 	 */
-	public static Vector<Integer> outputFeatures(HashMap<String, Object> preprocessed, 
+	public static SparseVector outputFeatures(PreprocessedTweet preprocessed, 
 		HashMap<String,Integer> posTags, Vector<String> lemmatizedTweet, Vector<Vector<String>> hashtags){
 		
-		Vector<Integer> features = new Vector<Integer>();
+		SparseVector features = new SparseVector();
 		
 		//positive and negative words
-		@SuppressWarnings("unchecked")
 		Vector<Integer> wordPol = PolarityInfo.getWordsInfo(lemmatizedTweet,
-				(Vector<String>)(preprocessed.get("normalized")), (Vector<Boolean>)(preprocessed.get("negated"))); 
+				preprocessed.getNormalized(), preprocessed.getNegated(), preprocessed.getNegationLength()); 
 				
-		features.add(wordPol.elementAt(0));
-		features.add(wordPol.elementAt(1));
+		features.append(wordPol.elementAt(0));
+		features.append(wordPol.elementAt(1));
 
 		//positive and negative hashtags
 		int posHashtags = 0;
 		int negHashtags = 0;
 		for(int r= 0; r < hashtags.size(); r++){
-			Vector<Boolean> hneg = new Vector<Boolean>();
-			for(int u = 0; u < hashtags.get(r).size(); u++){
-				hneg.addElement(false);
-			}
-			@SuppressWarnings("unchecked")
-			Vector<Integer> hpol = PolarityInfo.getWordsInfo(hashtags.get(r), ((Vector<Vector<String>>)(preprocessed.get("hashtags"))).get(r), hneg);
+			Vector<Integer> hpol = PolarityInfo.getWordsInfo(hashtags.get(r), preprocessed.getHashtags()[r],
+					new BitSet(), hashtags.get(r).size());
  			if(hpol.elementAt(1) > hpol.elementAt(0)){
  				//more negative words 
  				negHashtags++;
@@ -116,55 +178,52 @@ public class FeatureExtractor {
  				posHashtags++;
  			}
 		}
-		features.add(posHashtags);
-		features.add(negHashtags);
+		features.append(posHashtags);
+		features.append(negHashtags);
 		
 		// number of !, ?, ?!, elongated
-		features.add((Integer)(preprocessed.get("!")));
-		features.add((Integer)(preprocessed.get("?")));
-		features.add((Integer)(preprocessed.get("?!")));
-		features.add((Integer)(preprocessed.get("elongated")));
+		features.append(preprocessed.getExclamations());
+		features.append(preprocessed.getInterrogations());
+		features.append(preprocessed.getInterrogationsAndExclamations());
+		features.append(preprocessed.getElongated());
 		
 		//number of negated contexts
-		@SuppressWarnings("unchecked")
-		Vector<Boolean> isNegated = (Vector<Boolean>)(preprocessed.get("negated"));
+		BitSet isNegated = preprocessed.getNegated();
 		int switches = 0; 
-		for(int i = 1; i < isNegated.size(); i++){
-			if(isNegated.elementAt(i) && !isNegated.elementAt(i-1)){
+		for(int i = 1; i < preprocessed.getNegationLength(); i++){
+			if(isNegated.get(i) && !isNegated.get(i-1)){
 				switches++;
 			}
 		}
-		features.add(switches);
+		features.append(switches);
 		
 		//number of positive and negative emoticons
-		@SuppressWarnings("unchecked")
-		Vector<Integer> emoPolarity = PolarityInfo.getEmoticonsInfo((Vector<String>)(preprocessed.get("emoticons")), ((Vector<String>)preprocessed.get("emojis")));
-		features.add(emoPolarity.elementAt(0));
-		features.add(emoPolarity.elementAt(1));
+		Vector<Integer> emoPolarity = PolarityInfo.getEmoticonsInfo(preprocessed.getEmoticons(), preprocessed.getEmojis());
+		features.append(emoPolarity.elementAt(0));
+		features.append(emoPolarity.elementAt(1));
 		
 		//presence of emoticons
-		@SuppressWarnings("unchecked")
-		int emoCount = ((Vector<String>)(preprocessed.get("emoticons"))).size()+((Vector<String>)(preprocessed.get("emojis"))).size();
+		int emoCount = preprocessed.getEmoticons().length+preprocessed.getEmojis().length;
 		if(emoCount == 0){
-			features.add(0);
+			features.append(0);
 		}else{
-			features.add(1);
+			features.append(1);
 		}
 		
 		//mentions
-		boolean hasMentions = (boolean)(preprocessed.get("mentions"));
+		boolean hasMentions = preprocessed.hasMention();
 		if(hasMentions){
-			features.add(1);
+			features.append(1);
 		}else{
-			features.add(0);
+			features.append(0);
 		}
 		
 		//urls
-		boolean hasURL = (boolean)(preprocessed.get("urls"));
+		boolean hasURL = preprocessed.hasURL();
 		if(hasURL){
-			features.add(1);
+			features.append(1);
 		}else{
-			features.add(0);
+			features.append(0);
 		}
 		
 		//POS list in MADAMIRA manual page 31
@@ -293,29 +352,26 @@ public class FeatureExtractor {
 		}
 		
 		
-		features.add(nouns);
-		features.add(numberwords);
-		features.add(propernouns);
-		features.add(adjectives);
-		features.add(adverbs);
-		features.add(pronouns);
-		features.add(verbs);
-		features.add(particles);
-		features.add(prepositions);
-		features.add(abbreviations);
-		features.add(punctuation);
-		features.add(conjunctions);
-		features.add(interjections);
-		features.add(digitalnumbers);
-		features.add(latin);
+		features.append(nouns);
+		features.append(numberwords);
+		features.append(propernouns);
+		features.append(adjectives);
+		features.append(adverbs);
+		features.append(pronouns);
+		features.append(verbs);
+		features.append(particles);
+		features.append(prepositions);
+		features.append(abbreviations);
+		features.append(punctuation);
+		features.append(conjunctions);
+		features.append(interjections);
+		features.append(digitalnumbers);
+		features.append(latin);
 		
-		String tweet = "";
-		for (String word : lemmatizedTweet) {
-			tweet += word + " ";
-		}
+		String tweet = join(lemmatizedTweet);
 		
-		features.addAll(outputNgramFeatures(tweet));
-		features.addAll(outputCharNgramFeatures(tweet));
+		features.append(outputNgramFeatures(tweet));
+		features.append(outputCharNgramFeatures(tweet));
 		
 		return features;
 	}
@@ -323,90 +379,68 @@ public class FeatureExtractor {
 	/**
 	 * Given a tweet, outputs its n-gram features: 1-grams, 2-grams, 3-grams then 4-grams
 	 * @param tweet Input tweet
-	 * @return Vector of features
+	 * @return Sparse vector of features
 	 */
-	public static Vector<Integer> outputNgramFeatures(String tweet) {
-		Vector<Integer> features = new Vector<Integer>();
-		
-		List<String> unigrams = NGramExtractor.ngrams(1, tweet);
-		for (String ngram : NGramExtractor.unigrams) {
-			if (unigrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
-			}
-		}
-		
-		List<String> bigrams = NGramExtractor.ngrams(2, tweet);
-		for (String ngram : NGramExtractor.bigrams) {
-			if (bigrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
-			}
-		}
-		
-		List<String> trigrams = NGramExtractor.ngrams(3, tweet);
-		for (String ngram : NGramExtractor.trigrams) {
-			if (trigrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
-			}
-		}
-		
-		List<String> fourgrams = NGramExtractor.ngrams(4, tweet);
-		for (String ngram : NGramExtractor.fourgrams) {
-			if (fourgrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
-			}
-		}
+	public static SparseVector outputNgramFeatures(String tweet) {
+		SparseVector features = new SparseVector();
+		appendNgramFeatures(features, NGramExtractor.ngrams(1, tweet), NGramExtractor.unigramIndex.get());
+		appendNgramFeatures(features, NGramExtractor.ngrams(2, tweet), NGramExtractor.bigramIndex.get());
+		appendNgramFeatures(features, NGramExtractor.ngrams(3, tweet), NGramExtractor.trigramIndex.get());
+		appendNgramFeatures(features, NGramExtractor.ngrams(4, tweet), NGramExtractor.fourgramIndex.get());
 		return features;
 	}
 	
 	/**
 	 * Given a tweet, outputs its character n-gram features: 3-grams, 4-grams, then 5-grams
 	 * @param tweet Input tweet
-	 * @return Vector of features
+	 * @return Sparse vector of features
 	 */
-	public static Vector<Integer> outputCharNgramFeatures(String tweet) {
-		Vector<Integer> features = new Vector<Integer>();
-		
-		List<String> trigrams = NGramExtractor.charNgrams(3, tweet);
-		for (String ngram : NGramExtractor.charTrigrams) {
-			if (trigrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
+	public static SparseVector outputCharNgramFeatures(String tweet) {
+		SparseVector features = new SparseVector();
+		appendNgramFeatures(features, NGramExtractor.charNgrams(3, tweet), NGramExtractor.charTrigramIndex.get());
+		appendNgramFeatures(features, NGramExtractor.charNgrams(4, tweet), NGramExtractor.charFourgramIndex.get());
+		appendNgramFeatures(features, NGramExtractor.charNgrams(5, tweet), NGramExtractor.charFivegramIndex.get());
+		return features;
+	}
+	
+	/**
+	 * Appends the binary features of one n-gram feature set: a feature is 1 if its n-gram occurs in the tweet.
+	 * Only the n-grams of the tweet are looked up, so the cost does not depend on the size of the feature set.
+	 * @param features Vector to append the features to
+	 * @param ngrams N-grams of the tweet
+	 * @param index HashMap from n-gram features to their column
+	 */
+	private static void appendNgramFeatures(SparseVector features, List<String> ngrams, HashMap<String, Integer> index) {
+		int[] columns = new int[ngrams.size()];
+		int count = 0;
+		for (String ngram : ngrams) {
+			Integer column = index.get(ngram);
+			if (column != null) {
+				columns[count++] = column;
 			}
 		}
+		Arrays.sort(columns, 0, count);
 		
-		List<String> fourgrams = NGramExtractor.charNgrams(4, tweet);
-		for (String ngram : NGramExtractor.charFourgrams) {
-			if (fourgrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
+		// an n-gram that occurs several times is still a single feature
+		int unique = 0;
+		for (int i = 0; i < count; ++i) {
+			if (unique == 0 || columns[unique-1] != columns[i]) {
+				columns[unique++] = columns[i];
 			}
 		}
-		
-		List<String> fivegrams = NGramExtractor.charNgrams(5, tweet);
-		for (String ngram : NGramExtractor.charFivegrams) {
-			if (fivegrams.contains(ngram)) {
-				features.add(1);
-			}
-			else {
-				features.add(0);
-			}
+		features.appendIndicators(columns, unique, index.size());
+	}
+	
+	/**
+	 * Joins words into one String, each word being followed by a space.
+	 * @param words Vector of words
+	 * @return Joined String
+	 */
+	private static String join(Vector<String> words) {
+		StringBuilder joined = new StringBuilder();
+		for (String word : words) {
+			joined.append(word).append(' ');
 		}
-		return features;
+		return joined.toString();
 	}
 }
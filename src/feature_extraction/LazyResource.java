@@ -0,0 +1,73 @@
+package feature_extraction;
+
+/**
+ * Resource that is loaded on first use, like a lexicon or a set of n-gram features.
+ * Loading happens at most once at a time, and a loaded resource can be evicted to free memory; it is then loaded again on next use.
+ * @param <T> Type of the resource
+ */
+public abstract class LazyResource<T> {
+	/**
+	 * Name of the resource, for messages.
+	 */
+	private final String name;
+
+	/**
+	 * Loaded resource, or null if it is not loaded.
+	 */
+	private volatile T value = null;
+
+	/**
+	 * Creates a resource that is not loaded yet.
+	 * @param name Name of the resource
+	 */
+	public LazyResource(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the resource.
+	 * @return Name of the resource
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the resource, loading it if needed.
+	 * @return Resource
+	 */
+	public T get() {
+		T result = value;
+		if (result == null) {
+			synchronized (this) {
+				result = value;
+				if (result == null) {
+					result = load();
+					value = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Indicates whether the resource is loaded.
+	 * @return Whether the resource is loaded
+	 */
+	public boolean isLoaded() {
+		return value != null;
+	}
+
+	/**
+	 * Drops the loaded resource, if any. Code that already holds it can keep using it.
+	 */
+	public synchronized void evict() {
+		value = null;
+	}
+
+	/**
+	 * Loads the resource.
+	 * @return Loaded resource, never null
+	 */
+	protected abstract T load();
+}
@@ -0,0 +1,166 @@
+package feature_extraction;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Read-only sentiment lexicon stored in a lexicon snapshot.
+ * Words are kept as a sorted table of UTF-8 strings and scores as a table of doubles, both read directly from the snapshot,
+ * so no object is created per word. Words are found by binary search.
+ * Only absolute reads are made on the underlying buffer, so a lexicon can be shared between threads.
+ */
+public class Lexicon {
+	/**
+	 * Encoding of words in the snapshot.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Snapshot content.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Number of words.
+	 */
+	private final int size;
+
+	/**
+	 * Number of scores per word.
+	 */
+	private final int columns;
+
+	/**
+	 * Position of the table of string offsets, which has size+1 entries.
+	 */
+	private final int offsetsAt;
+
+	/**
+	 * Position of the UTF-8 bytes of the words.
+	 */
+	private final int stringsAt;
+
+	/**
+	 * Position of the table of scores, which has size*columns entries.
+	 */
+	private final int scoresAt;
+
+	/**
+	 * Creates a lexicon from its location in a snapshot.
+	 * @param buffer Snapshot content
+	 * @param size Number of words
+	 * @param columns Number of scores per word
+	 * @param offsetsAt Position of the table of string offsets
+	 * @param stringsAt Position of the UTF-8 bytes of the words
+	 * @param scoresAt Position of the table of scores
+	 */
+	Lexicon(ByteBuffer buffer, int size, int columns, int offsetsAt, int stringsAt, int scoresAt) {
+		this.buffer = buffer;
+		this.size = size;
+		this.columns = columns;
+		this.offsetsAt = offsetsAt;
+		this.stringsAt = stringsAt;
+		this.scoresAt = scoresAt;
+	}
+
+	/**
+	 * Returns the number of words.
+	 * @return Number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of scores per word.
+	 * @return Number of scores per word
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Indicates whether the lexicon contains a word.
+	 * @param word Word to look up
+	 * @return Whether the word is in the lexicon
+	 */
+	public boolean containsKey(String word) {
+		return indexOf(word) >= 0;
+	}
+
+	/**
+	 * Finds the position of a word in the lexicon.
+	 * @param word Word to look up
+	 * @return Position of the word, or -1 if it is not in the lexicon
+	 */
+	public int indexOf(String word) {
+		byte[] key = word.getBytes(UTF8);
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int cmp = compareTo(middle, key);
+			if (cmp < 0) {
+				low = middle + 1;
+			}
+			else if (cmp > 0) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the word at a given position.
+	 * @param index Position of the word
+	 * @return Word
+	 */
+	public String getKey(int index) {
+		int start = offset(index);
+		byte[] bytes = new byte[offset(index + 1) - start];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = buffer.get(stringsAt + start + i);
+		}
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * Returns a score of the word at a given position.
+	 * @param index Position of the word
+	 * @param column Position of the score
+	 * @return Score
+	 */
+	public double getScore(int index, int column) {
+		return buffer.getDouble(scoresAt + 8 * (index * columns + column));
+	}
+
+	/**
+	 * Returns the offset of a word within the UTF-8 bytes of the words.
+	 * @param index Position of the word
+	 * @return Offset of the word
+	 */
+	private int offset(int index) {
+		return buffer.getInt(offsetsAt + 4 * index);
+	}
+
+	/**
+	 * Compares the word at a given position with a key, byte by byte as unsigned values.
+	 * @param index Position of the word
+	 * @param key UTF-8 bytes of the key
+	 * @return Negative, zero or positive if the word is respectively before, equal to or after the key
+	 */
+	private int compareTo(int index, byte[] key) {
+		int start = stringsAt + offset(index);
+		int length = stringsAt + offset(index + 1) - start;
+		int common = Math.min(length, key.length);
+		for (int i = 0; i < common; ++i) {
+			int cmp = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return length - key.length;
+	}
+}
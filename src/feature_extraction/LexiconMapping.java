@@ -4,83 +4,164 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Vector;
 public class LexiconMapping {
 	/**
-	 * HashMap from words to their polarities according to the sentiment lexicon ArSenL.
+	 * Location of ArSenL.
 	 */
-	public static final HashMap<String, Vector<Double>> arsenl = arSenLMapping("Resources\\Lexicons\\ArSenL.txt");
+	private static final String ARSENL = Configuration.get().getResource("Lexicons", "ArSenL.txt");
 
 	/**
-	 * HashMap from words to their polarities according to the sentiment lexicon AraSenTi.
+	 * Location of AraSenTi.
 	 */
-	public static final HashMap<String, Double> arasenti = araSenTiMapping("Resources\\Lexicons\\AraSenTi.txt");
+	private static final String ARASENTI = Configuration.get().getResource("Lexicons", "AraSenTi.txt");
 
 	/**
-	 * HashMap from emojis to their polarities according to the emoji sentiment lexicon Emoji Sentiment Ranking.
+	 * Location of Emoji Sentiment Ranking.
 	 */
-	public static final HashMap<String, Vector<Double>> emojisLexicon = emojiMapping("Resources\\Lexicons\\Emojis.csv");
+	private static final String EMOJIS = Configuration.get().getResource("Lexicons", "Emojis.csv");
 
 	/**
-	 * HashMap from words to their polarities according to the sentiment lexicon DAHL (Dialectal Arabic Hashtag Lexicon).
+	 * Location of DAHL.
 	 */
-	public static final HashMap<String, Double> dahl = dahlMapping("Resources\\Lexicons\\DAHL.txt");
+	private static final String DAHL = Configuration.get().getResource("Lexicons", "DAHL.txt");
+
+	/**
+	 * Location of the binary snapshot compiled from all lexicons.
+	 */
+	private static final String SNAPSHOT = Configuration.get().getResource("Lexicons", "lexicons.bin");
+
+	/**
+	 * All lexicons, by name.
+	 */
+	public static final LazyResource<HashMap<String, Lexicon>> lexicons = new LazyResource<HashMap<String, Lexicon>>("lexicons") {
+		protected HashMap<String, Lexicon> load() {
+			return loadLexicons();
+		}
+	};
+
+	/**
+	 * Polarities of words according to the sentiment lexicon ArSenL.
+	 * Scores are: the positivity score, the negativity score, the confidence score.
+	 */
+	public static final LazyResource<Lexicon> arsenl = lexicon("arsenl");
+
+	/**
+	 * Polarities of words according to the sentiment lexicon AraSenTi.
+	 * The only score is positive if the word is positive, and negative if the word is negative.
+	 */
+	public static final LazyResource<Lexicon> arasenti = lexicon("arasenti");
+
+	/**
+	 * Polarities of emojis according to the emoji sentiment lexicon Emoji Sentiment Ranking.
+	 * Scores are: the positivity score, the negativity score.
+	 */
+	public static final LazyResource<Lexicon> emojisLexicon = lexicon("emojis");
+
+	/**
+	 * Polarities of words according to the sentiment lexicon DAHL (Dialectal Arabic Hashtag Lexicon).
+	 * The only score is positive if the word is positive, and negative if the word is negative.
+	 */
+	public static final LazyResource<Lexicon> dahl = lexicon("dahl");
+
+	/**
+	 * Polarities of lemmas and normalized words, precomputed from ArSenL, AraSenTi and DAHL.
+	 */
+	public static final LazyResource<PolarityDictionary> polarities = new LazyResource<PolarityDictionary>("polarities") {
+		protected PolarityDictionary load() {
+			return new PolarityDictionary(arsenl.get(), arasenti.get(), dahl.get());
+		}
+	};
 
 	/**
 	 * Vector of negation words.
 	 */
-	public static final Vector<String> negationWords = negation("Resources\\Negation.txt");
+	public static final LazyResource<Vector<String>> negationWords = new LazyResource<Vector<String>>("negation words") {
+		protected Vector<String> load() {
+			return negation(Configuration.get().getResource("Negation.txt"));
+		}
+	};
+
+	/**
+	 * Compiles the lexicon snapshot if it is missing or older than the lexicon files, so that later runs start without parsing them.
+	 * Meant to be run once after the lexicons are installed or updated.
+	 * @param args Unused
+	 */
+	public static void main(String[] args) {
+		System.out.println("Lexicon snapshot " + SNAPSHOT + " is up to date: " + arsenl.get().size() + " ArSenL words, "
+				+ arasenti.get().size() + " AraSenTi words, " + dahl.get().size() + " DAHL words, "
+				+ emojisLexicon.get().size() + " emojis.");
+	}
+
+	/**
+	 * Creates the resource that holds one lexicon of the snapshot.
+	 * @param name Name of the lexicon in the snapshot
+	 * @return Resource of the lexicon
+	 */
+	private static LazyResource<Lexicon> lexicon(final String name) {
+		return new LazyResource<Lexicon>(name) {
+			protected Lexicon load() {
+				return lexicons.get().get(name);
+			}
+		};
+	}
+
+	/**
+	 * Loads the lexicon snapshot, compiling it from the lexicon files first if it is missing or out of date.
+	 * If the snapshot cannot be saved, it is only kept in memory.
+	 * @return HashMap from lexicon names to lexicons
+	 */
+	private static HashMap<String, Lexicon> loadLexicons() {
+		if (LexiconSnapshot.isUpToDate(SNAPSHOT, ARSENL, ARASENTI, EMOJIS, DAHL)) {
+			try {
+				return LexiconSnapshot.load(SNAPSHOT);
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		System.out.println("Lexicon snapshot " + SNAPSHOT + " missing or out of date, compiling it from lexicon files.");
+		LinkedHashMap<String, HashMap<String, double[]>> parsed = new LinkedHashMap<String, HashMap<String, double[]>>();
+		parsed.put("arsenl", arSenLMapping(ARSENL));
+		parsed.put("arasenti", araSenTiMapping(ARASENTI));
+		parsed.put("emojis", emojiMapping(EMOJIS));
+		parsed.put("dahl", dahlMapping(DAHL));
+		try {
+			return LexiconSnapshot.compile(parsed, SNAPSHOT);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return LexiconSnapshot.compileInMemory(parsed);
+		}
+	}
 	
 	/**
 	 * Returns the content of ArSenL in the form of a HashMap from words to their polarities.
-	 * Polarities are in a Vector of Doubles where:
+	 * Polarities are in an array of doubles where:
 	 * - the first element is the positivity score
 	 * - the second element is the negativity score
 	 * - the third element is the confidence score
+	 * When a word appears more than once, the entry with the highest confidence is kept.
 	 * @param filename Location of ArSenL
 	 * @return HashMap from words to their polarities
 	 */
-	public static HashMap<String, Vector<Double>> arSenLMapping(String filename){
-		HashMap<String, Vector<Double>> map = new HashMap<String, Vector<Double>>();
+	public static HashMap<String, double[]> arSenLMapping(String filename){
+		HashMap<String, double[]> map = new HashMap<String, double[]>();
 		try {
 			String line;
 			BufferedReader br = new BufferedReader(new InputStreamReader(
 					new FileInputStream(filename), "UTF-8"));
 			
 			while ((line = br.readLine()) != null) {
-				if(line.length() > 0){
-					if(line.charAt(0) != '/'){
-						//current row is a word with its scores
-						int counter = 0;
-						String word = "";
-						String pos = "";
-						String neg = "";
-						String con = "";
-						for(int i = 0; i < line.length(); i++){
-							char curr = line.charAt(i);
-							if(curr != ';'){
-								if(counter == 0){
-									word+=curr;
-								}else if(counter == 1){
-									pos+=curr;
-								}else if(counter == 2){
-									neg+=curr;
-								}else if(counter == 3){
-									con+=curr;
-								}
-							}else{
-								counter++;
-							}
-						}
-						Vector<Double> v = new Vector<Double>();
-						v.add(Double.parseDouble(pos));
-						v.add(Double.parseDouble(neg));
-						v.add(Double.parseDouble(con));
-						
-						boolean contains = map.containsKey(word);
-						if((contains && map.get(word).get(2) < v.get(2)) || !contains){
-								map.put(word, v);
-						}
+				if(line.length() > 0 && line.charAt(0) != '/'){
+					//current row is a word with its scores
+					String[] fields = line.split(";", -1);
+					double[] v = {Double.parseDouble(fields[1]), Double.parseDouble(fields[2]), Double.parseDouble(fields[3])};
+					
+					double[] previous = map.get(fields[0]);
+					if(previous == null || previous[2] < v[2]){
+						map.put(fields[0], v);
 					}
 				}
 			}
@@ -96,13 +177,13 @@ public class LexiconMapping {
 	
 	/**
 	 * Returns the content of AraSenTi in the form of a HashMap from words to their polarities.
-	 * Polarities are a Double value that is positive if the word is positive, and negative if the word is negative.
+	 * Polarities are an array with a single value that is positive if the word is positive, and negative if the word is negative.
 	 * The larger the absolute value of the polarity, the stronger the polarity.
 	 * @param filename Location of AraSenTi
 	 * @return HashMap from words to their polarities
 	 */
-	public static HashMap<String, Double> araSenTiMapping(String filename){
-		HashMap<String, Double> map = new HashMap<String, Double>();
+	public static HashMap<String, double[]> araSenTiMapping(String filename){
+		HashMap<String, double[]> map = new HashMap<String, double[]>();
 		try {
 			String line;
 			BufferedReader br = new BufferedReader(new InputStreamReader(
@@ -111,23 +192,11 @@ public class LexiconMapping {
 			while ((line = br.readLine()) != null) {
 				
 				if(line.length()>0 && line.charAt(0) != '/'){
-					
-					int counter = 0;
-					String word = "";
-					String score = "";
-					for(int i = 0; i < line.length(); i++){
-						char curr = line.charAt(i);
-						if(curr != ' '){
-							if(counter == 0){
-								word+=curr;
-							}else{
-								score+=curr;
-							}
-						}else{
-							counter++;
-						}
-					}
-					map.put(word, Double.parseDouble(score));
+					// the word ends at the first space, and the score is everything after it without spaces
+					int space = line.indexOf(' ');
+					String word = space == -1 ? line : line.substring(0, space);
+					String score = space == -1 ? "" : line.substring(space + 1).replace(" ", "");
+					map.put(word, new double[] {Double.parseDouble(score)});
 				}
 			}
 			br.close();
@@ -141,14 +210,14 @@ public class LexiconMapping {
 	
 	/**
 	 * Returns the content of Emoji Sentiment Ranking in the form of a HashMap from words to their polarities.
-	 * Polarities are in a Vector of Doubles where:
+	 * Polarities are in an array of doubles where:
 	 * - the first element is the positivity score
 	 * - the second element is the negativity score
 	 * @param filename Location of Emoji Sentiment Ranking
 	 * @return HashMap from words to their polarities
 	 */
-	public static HashMap<String, Vector<Double>> emojiMapping(String filename){
-		HashMap<String, Vector<Double>> map = new HashMap<String, Vector<Double>>();
+	public static HashMap<String, double[]> emojiMapping(String filename){
+		HashMap<String, double[]> map = new HashMap<String, double[]>();
 		try {
 			String line;
 			BufferedReader br = new BufferedReader(new InputStreamReader(
@@ -156,10 +225,7 @@ public class LexiconMapping {
 			br.readLine();
 			while ((line = br.readLine()) != null) {
 				String[] s = line.split(",");
-				Vector<Double> v = new Vector<Double>();
-				v.addElement(Double.parseDouble(s[2]));
-				v.addElement(Double.parseDouble(s[1]));
-				map.put(s[0], v);
+				map.put(s[0], new double[] {Double.parseDouble(s[2]), Double.parseDouble(s[1])});
 			}
 			br.close();
 			
@@ -172,13 +238,13 @@ public class LexiconMapping {
 
 	/**
 	 * Returns the content of DAHL in the form of a HashMap from words to their polarities.
-	 * Polarities are a Double value that is positive if the word is positive, and negative if the word is negative.
+	 * Polarities are an array with a single value that is positive if the word is positive, and negative if the word is negative.
 	 * The larger the absolute value of the polarity, the stronger the polarity.
 	 * @param filename Location of DAHL
 	 * @return HashMap from words to their polarities
 	 */
-	public static HashMap<String, Double> dahlMapping(String filename){
-		HashMap<String, Double> map = new HashMap<String, Double>();
+	public static HashMap<String, double[]> dahlMapping(String filename){
+		HashMap<String, double[]> map = new HashMap<String, double[]>();
 		try{
 			String line;
 			BufferedReader br = new BufferedReader(new InputStreamReader(
@@ -186,24 +252,9 @@ public class LexiconMapping {
 			
 			while ((line = br.readLine()) != null) {
 				if(line.length()>0 && line.charAt(0) != '/'){
-					int pos = 0;
-					String word = "";
-					String score = "";
-					for(int i = 0; i < line.length(); i++){
-						char curr = line.charAt(i);
-						if(curr != '\t'){
-							if(pos == 0){
-								word += curr;
-							}
-							else if(pos == 2){
-								score += curr;
-							}
-						}
-						else{
-							pos++;
-						}
-					}
-					map.put(word, Double.parseDouble(score));
+					// columns are separated by tabs: the word is in the first one and the score in the third one
+					String[] fields = line.split("\t", -1);
+					map.put(fields[0], new double[] {Double.parseDouble(fields.length > 2 ? fields[2] : "")});
 				}
 			}
 			br.close();			
@@ -0,0 +1,198 @@
+package feature_extraction;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of the sentiment lexicons, compiled from their text files.
+ * The snapshot is memory-mapped, and lexicons are read from it without parsing.
+ * File format (big-endian):
+ * - magic number and version
+ * - number of lexicons
+ * - for every lexicon: its name, its number of words, its number of scores per word,
+ * the offsets of its words (one more than the number of words), the UTF-8 bytes of its words sorted byte by byte,
+ * then its scores, word after word
+ * Names are written as their length in bytes followed by their UTF-8 bytes.
+ */
+public class LexiconSnapshot {
+	/**
+	 * Magic number at the beginning of snapshot files.
+	 */
+	private static final int MAGIC = 0x4F4D414C;
+
+	/**
+	 * Version of the file format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Encoding of words and names in snapshot files.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Loads a snapshot file by memory-mapping it.
+	 * @param filename Location of the snapshot
+	 * @return HashMap from lexicon names to lexicons
+	 * @throws IOException If the file cannot be read or is not a snapshot
+	 */
+	public static HashMap<String, Lexicon> load(String filename) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), filename);
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Compiles lexicons into a snapshot and saves it.
+	 * @param lexicons HashMaps from words to their scores, by lexicon name. All words of a lexicon have the same number of scores.
+	 * @param filename Location of the snapshot
+	 * @return HashMap from lexicon names to lexicons, read from the compiled snapshot
+	 * @throws IOException If the file cannot be written
+	 */
+	public static HashMap<String, Lexicon> compile(LinkedHashMap<String, HashMap<String, double[]>> lexicons, String filename)
+			throws IOException {
+		byte[] snapshot = toBytes(lexicons);
+		FileOutputStream out = new FileOutputStream(filename);
+		try {
+			out.write(snapshot);
+		}
+		finally {
+			out.close();
+		}
+		return read(ByteBuffer.wrap(snapshot), filename);
+	}
+
+	/**
+	 * Compiles lexicons into a snapshot that is only kept in memory, for when it cannot be saved.
+	 * @param lexicons HashMaps from words to their scores, by lexicon name. All words of a lexicon have the same number of scores.
+	 * @return HashMap from lexicon names to lexicons
+	 */
+	public static HashMap<String, Lexicon> compileInMemory(LinkedHashMap<String, HashMap<String, double[]>> lexicons) {
+		try {
+			return read(ByteBuffer.wrap(toBytes(lexicons)), "in-memory snapshot");
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Indicates whether a snapshot exists and is more recent than all of its source files.
+	 * Source files that do not exist are ignored.
+	 * @param filename Location of the snapshot
+	 * @param sources Locations of the lexicon text files
+	 * @return Whether the snapshot can be used
+	 */
+	public static boolean isUpToDate(String filename, String... sources) {
+		File snapshot = new File(filename);
+		if (!snapshot.exists()) {
+			return false;
+		}
+		for (String source : sources) {
+			if (new File(source).lastModified() > snapshot.lastModified()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compiles lexicons into the content of a snapshot.
+	 * @param lexicons HashMaps from words to their scores, by lexicon name
+	 * @return Snapshot content
+	 * @throws IOException Never, since the snapshot is written in memory
+	 */
+	private static byte[] toBytes(LinkedHashMap<String, HashMap<String, double[]>> lexicons) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(lexicons.size());
+		for (Map.Entry<String, HashMap<String, double[]>> lexicon : lexicons.entrySet()) {
+			HashMap<String, double[]> scores = lexicon.getValue();
+			byte[][] words = new byte[scores.size()][];
+			int i = 0;
+			for (String word : scores.keySet()) {
+				words[i++] = word.getBytes(UTF8);
+			}
+			Arrays.sort(words, new Comparator<byte[]>() {
+				public int compare(byte[] a, byte[] b) {
+					int common = Math.min(a.length, b.length);
+					for (int j = 0; j < common; ++j) {
+						int cmp = (a[j] & 0xFF) - (b[j] & 0xFF);
+						if (cmp != 0) {
+							return cmp;
+						}
+					}
+					return a.length - b.length;
+				}
+			});
+			int columns = words.length == 0 ? 0 : scores.values().iterator().next().length;
+
+			byte[] name = lexicon.getKey().getBytes(UTF8);
+			out.writeShort(name.length);
+			out.write(name);
+			out.writeInt(words.length);
+			out.writeInt(columns);
+			int offset = 0;
+			out.writeInt(offset);
+			for (byte[] word : words) {
+				offset += word.length;
+				out.writeInt(offset);
+			}
+			for (byte[] word : words) {
+				out.write(word);
+			}
+			for (byte[] word : words) {
+				for (double score : scores.get(new String(word, UTF8))) {
+					out.writeDouble(score);
+				}
+			}
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads the lexicons of a snapshot, without copying their content.
+	 * @param buffer Snapshot content
+	 * @param filename Location of the snapshot, for error messages
+	 * @return HashMap from lexicon names to lexicons
+	 * @throws IOException If the content is not a snapshot
+	 */
+	private static HashMap<String, Lexicon> read(ByteBuffer buffer, String filename) throws IOException {
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+			throw new IOException(filename + " is not a lexicon snapshot");
+		}
+		int nbOfLexicons = buffer.getInt();
+		HashMap<String, Lexicon> lexicons = new HashMap<String, Lexicon>();
+		for (int i = 0; i < nbOfLexicons; ++i) {
+			byte[] name = new byte[buffer.getShort() & 0xFFFF];
+			buffer.get(name);
+			int size = buffer.getInt();
+			int columns = buffer.getInt();
+			int offsetsAt = buffer.position();
+			int stringsAt = offsetsAt + 4 * (size + 1);
+			int scoresAt = stringsAt + buffer.getInt(offsetsAt + 4 * size);
+			lexicons.put(new String(name, UTF8), new Lexicon(buffer, size, columns, offsetsAt, stringsAt, scoresAt));
+			buffer.position(scoresAt + 8 * size * columns);
+		}
+		return lexicons;
+	}
+}
@@ -1,85 +1,44 @@
 package feature_extraction;
-import edu.columbia.ccls.madamira.MADAMIRAWrapper;
 import edu.columbia.ccls.madamira.configuration.MadamiraInput;
 import edu.columbia.ccls.madamira.configuration.MadamiraOutput;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.concurrent.ExecutionException;
 
 /**
  * Calls MADAMIRA through its API.
  * Modified from MADAMIRA example file: APIExampleUse.
+ * MADAMIRA itself is kept loaded between calls by {@link MadamiraSession}, and batches are split across
+ * the sessions of {@link MadamiraPool}.
  */
 public class Madamira {
     /**
-     * MADAMIRA namespace as defined by its XML schema.
+     * Runs Madamira on an input that is already in memory, without going through any file.
+     * @param input MADAMIRA input
+     * @return MADAMIRA output
+     * @throws IllegalStateException If MADAMIRA cannot be loaded, is interrupted or fails, with the reason as cause
      */
-    private static final String MADAMIRA_NS = "edu.columbia.ccls.madamira.configuration";
-
-    /**
-     * Runs Madamira on input file.
-     * @param infilename Location of input file
-     * @param outfilename Desired location of output file
-     */
-    public static void runMadamira(String infilename, String outfilename) {
-        final MADAMIRAWrapper wrapper = new MADAMIRAWrapper();
-        JAXBContext jc = null;
-
+    public static MadamiraOutput analyze(MadamiraInput input) {
         try {
-            jc = JAXBContext.newInstance(MADAMIRA_NS);
-            Unmarshaller unmarshaller = jc.createUnmarshaller();
-
-            InputStream inputStream = new FileInputStream(infilename);
-            Reader reader = new InputStreamReader(inputStream, "UTF-8");
-            
-            // The structure of the MadamiraInput object is exactly similar to the
-            // madamira_input element in the XML
-            final MadamiraInput input = (MadamiraInput)unmarshaller.unmarshal(reader);
-            {
-                int numSents = input.getInDoc().getInSeg().size();
-                String outputAnalysis = input.getMadamiraConfiguration().
-                        getOverallVars().getOutputAnalyses();
-                String outputEncoding = input.getMadamiraConfiguration().
-                        getOverallVars().getOutputEncoding();
-
-                System.out.println("processing " + numSents +
-                        " sentences for analysis type = " + outputAnalysis +
-                        " and output encoding = " + outputEncoding);
-            }
+            MadamiraPool pool = MadamiraPool.getInstance();
 
-            // The structure of the MadamiraOutput object is exactly similar to the
-            // madamira_output element in the XML
-            final MadamiraOutput output = wrapper.processString(input);
-
-            {
-                int numSents = output.getOutDoc().getOutSeg().size();
-                System.out.println("processed output contains "+numSents+" sentences...");
-            }
-
-
-            jc.createMarshaller().marshal(output, new File(outfilename));
+            System.out.println("processing " + input.getInDoc().getInSeg().size() +
+                    " sentences for analysis type = " + input.getMadamiraConfiguration().
+                    getOverallVars().getOutputAnalyses() + " and output encoding = " +
+                    input.getMadamiraConfiguration().getOverallVars().getOutputEncoding());
 
+            MadamiraOutput output = pool.process(input);
 
+            System.out.println("processed output contains " +
+                    output.getOutDoc().getOutSeg().size() + " sentences...");
+            return output;
         } catch (JAXBException ex) {
-            System.out.println("Error marshalling or unmarshalling data: "
-                    + ex.getMessage());
+            throw new IllegalStateException("Error creating JAXB context: " + ex.getMessage(), ex);
         } catch (InterruptedException ex) {
-            System.out.println("MADAMIRA thread interrupted: "
-                    +ex.getMessage());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("MADAMIRA thread interrupted", ex);
         } catch (ExecutionException ex) {
-            System.out.println("Unable to retrieve result of task. " +
-                    "MADAMIRA task may have been aborted: "+ex.getCause());
+            // the cause is what failed in the session, e.g. an IllegalStateException once it is shut down
+            throw new IllegalStateException("MADAMIRA task failed: " + ex.getCause(), ex.getCause());
         }
-        catch (Exception e) {
-        	e.printStackTrace();
-        }
-
-        wrapper.shutdown();
     }
 }
\ No newline at end of file
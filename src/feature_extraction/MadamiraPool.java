@@ -0,0 +1,290 @@
+package feature_extraction;
+import edu.columbia.ccls.madamira.configuration.InDoc;
+import edu.columbia.ccls.madamira.configuration.InSeg;
+import edu.columbia.ccls.madamira.configuration.MadamiraConfiguration;
+import edu.columbia.ccls.madamira.configuration.MadamiraInput;
+import edu.columbia.ccls.madamira.configuration.MadamiraOutput;
+import edu.columbia.ccls.madamira.configuration.OutSeg;
+import javax.xml.bind.JAXBException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Pool of MADAMIRA sessions that analyze the segments of a batch in parallel.
+ * A batch is split into consecutive shards, one per session, and the outputs of the shards are put back together
+ * in the order of the input segments, so callers see the same output as with a single session.
+ * Sessions are loaded on first use and kept for every batch processed afterwards.
+ */
+public class MadamiraPool {
+    /**
+     * Memory needed by one MADAMIRA session, as recommended by MADAMIRA (-Xmx2500m).
+     */
+    private static final long MEMORY_PER_SESSION = 2500L * 1024 * 1024;
+
+    /**
+     * Minimum number of segments in a shard, under which splitting a batch costs more than it saves.
+     */
+    private static final int MIN_SEGMENTS_PER_SHARD = 50;
+
+    /**
+     * Shared pool, created on first use.
+     */
+    private static MadamiraPool pool = null;
+
+    /**
+     * Maximum number of sessions.
+     */
+    private final int size;
+
+    /**
+     * Sessions loaded so far.
+     */
+    private final Vector<MadamiraSession> sessions = new Vector<MadamiraSession>();
+
+    /**
+     * Sessions that are not analyzing a shard.
+     */
+    private final BlockingQueue<MadamiraSession> idle = new LinkedBlockingQueue<MadamiraSession>();
+
+    /**
+     * Threads that hand shards to sessions.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a pool. No session is loaded until the first batch.
+     * @param size Maximum number of sessions
+     */
+    public MadamiraPool(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Number of MADAMIRA sessions must be positive");
+        }
+        this.size = size;
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "madamira-shard");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the shared pool, whose size is set by madamira.sessions in the configuration,
+     * or follows available processors and memory if it is not set.
+     * @return Shared pool
+     */
+    public static synchronized MadamiraPool getInstance() {
+        if (pool == null) {
+            int size = Configuration.get().getMadamiraSessions();
+            pool = new MadamiraPool(size > 0 ? size : getDefaultSize());
+        }
+        return pool;
+    }
+
+    /**
+     * Shuts the sessions of the shared pool down, as well as the shared session.
+     * Needed by short-lived programs, since MADAMIRA threads otherwise keep the JVM alive.
+     */
+    public static synchronized void shutdownShared() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        MadamiraSession.shutdownShared();
+    }
+
+    /**
+     * Returns the number of sessions that fit in this JVM: one per available processor,
+     * as long as the maximum heap size leaves enough memory for each of them. At least one.
+     * @return Number of sessions
+     */
+    public static int getDefaultSize() {
+        int byMemory = (int) Math.min(Runtime.getRuntime().maxMemory() / MEMORY_PER_SESSION, Integer.MAX_VALUE);
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), byMemory));
+    }
+
+    /**
+     * Returns the maximum number of sessions of the pool.
+     * @return Number of sessions
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Runs MADAMIRA on the given input, splitting its segments across the sessions of the pool.
+     * @param input MADAMIRA input
+     * @return MADAMIRA output, with one output segment per input segment, in the same order
+     * @throws JAXBException If a session cannot be created
+     * @throws InterruptedException If the calling thread is interrupted
+     * @throws ExecutionException If the analysis of a shard fails
+     */
+    public MadamiraOutput process(MadamiraInput input) throws JAXBException, InterruptedException, ExecutionException {
+        List<InSeg> segments = input.getInDoc().getInSeg();
+        int nbOfSegments = segments.size();
+        int nbOfShards = Math.min(size, Math.max(1, nbOfSegments / MIN_SEGMENTS_PER_SHARD));
+        if (nbOfShards == 1) {
+            return processShard(copy(input, segments));
+        }
+
+        Vector<Future<MadamiraOutput>> shards = new Vector<Future<MadamiraOutput>>();
+        for (int i = 0; i < nbOfShards; i++) {
+            List<InSeg> shardSegments = segments.subList(nbOfSegments * i / nbOfShards, nbOfSegments * (i + 1) / nbOfShards);
+            final MadamiraInput shard = copy(input, shardSegments);
+            shards.add(executor.submit(new Callable<MadamiraOutput>() {
+                public MadamiraOutput call() throws Exception {
+                    return processShard(shard);
+                }
+            }));
+        }
+
+        MadamiraOutput output = null;
+        try {
+            for (Future<MadamiraOutput> shard : shards) {
+                MadamiraOutput shardOutput = shard.get();
+                if (output == null) {
+                    output = shardOutput;
+                }
+                else {
+                    List<OutSeg> outSegments = output.getOutDoc().getOutSeg();
+                    outSegments.addAll(shardOutput.getOutDoc().getOutSeg());
+                }
+            }
+        }
+        finally {
+            for (Future<MadamiraOutput> shard : shards) {
+                shard.cancel(false);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Copies an input with some of its segments. The configuration is cloned, since the one built by XMLParser is shared
+     * by every caller, and sessions must not use the same configuration object at the same time.
+     * @param input MADAMIRA input
+     * @param segments Segments of the copy
+     * @return New MADAMIRA input
+     */
+    private static MadamiraInput copy(MadamiraInput input, List<InSeg> segments) {
+        MadamiraInput copy = new MadamiraInput();
+        copy.setMadamiraConfiguration((MadamiraConfiguration) input.getMadamiraConfiguration().clone());
+        InDoc doc = new InDoc();
+        doc.setId(input.getInDoc().getId());
+        doc.getInSeg().addAll(segments);
+        copy.setInDoc(doc);
+        return copy;
+    }
+
+    /**
+     * Loads every session of the pool that is not loaded yet, and has each of them analyze a short segment,
+     * so that the batches processed afterwards do not pay for loading MADAMIRA.
+     * @throws Exception If the MADAMIRA input cannot be built, a session cannot be created or the analysis fails
+     */
+    public void warmUp() throws Exception {
+        // every session created here is handed back to idle, whether or not its analysis was submitted
+        Vector<MadamiraSession> loaded = new Vector<MadamiraSession>();
+        int submitted = 0;
+        try {
+            synchronized (this) {
+                while (sessions.size() < size) {
+                    loaded.add(load());
+                }
+            }
+
+            Vector<Future<MadamiraOutput>> analyses = new Vector<Future<MadamiraOutput>>();
+            for (final MadamiraSession session : loaded) {
+                List<InSeg> segments = Arrays.asList(XMLParser.segment("warmup", new String[] {"\u0645\u0631\u062d\u0628\u0627"}));
+                final MadamiraInput input = copy(XMLParser.buildInput(segments), segments);
+                analyses.add(executor.submit(new Callable<MadamiraOutput>() {
+                    public MadamiraOutput call() throws Exception {
+                        try {
+                            return session.process(input);
+                        }
+                        finally {
+                            idle.add(session);
+                        }
+                    }
+                }));
+                ++submitted;
+            }
+            for (Future<MadamiraOutput> analysis : analyses) {
+                analysis.get();
+            }
+        }
+        finally {
+            for (int i = submitted; i < loaded.size(); i++) {
+                idle.add(loaded.get(i));
+            }
+        }
+    }
+
+    /**
+     * Runs MADAMIRA on an input with the first session available.
+     * @param input MADAMIRA input
+     * @return MADAMIRA output
+     * @throws JAXBException If a session cannot be created
+     * @throws InterruptedException If the calling thread is interrupted
+     * @throws ExecutionException If the analysis fails
+     */
+    private MadamiraOutput processShard(MadamiraInput input) throws JAXBException, InterruptedException, ExecutionException {
+        MadamiraSession session = acquire();
+        try {
+            return session.process(input);
+        }
+        finally {
+            idle.add(session);
+        }
+    }
+
+    /**
+     * Takes a session that is not in use, loading a new one if the pool is not full, or else waiting for one.
+     * @return Session
+     * @throws JAXBException If a session cannot be created
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    private MadamiraSession acquire() throws JAXBException, InterruptedException {
+        MadamiraSession session = idle.poll();
+        if (session != null) {
+            return session;
+        }
+        synchronized (this) {
+            if (sessions.size() < size) {
+                return load();
+            }
+        }
+        return idle.take();
+    }
+
+    /**
+     * Loads a new session of the pool. The session is counted in the pool only once it is loaded,
+     * so a session that fails to load can be loaded again later; the caller must hand it back to idle once done.
+     * The first session of the pool is the shared session.
+     * @return Session
+     * @throws JAXBException If the session cannot be created
+     */
+    private synchronized MadamiraSession load() throws JAXBException {
+        MadamiraSession session = sessions.isEmpty() ? MadamiraSession.getInstance() : MadamiraSession.create();
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * Shuts all sessions of the pool down.
+     */
+    public synchronized void shutdown() {
+        for (MadamiraSession session : sessions) {
+            session.shutdown();
+        }
+        executor.shutdown();
+    }
+}
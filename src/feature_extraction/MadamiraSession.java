@@ -0,0 +1,117 @@
+package feature_extraction;
+import edu.columbia.ccls.madamira.MADAMIRAWrapper;
+import edu.columbia.ccls.madamira.configuration.MadamiraInput;
+import edu.columbia.ccls.madamira.configuration.MadamiraOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Long-lived MADAMIRA instance.
+ * MADAMIRA models are loaded once, on first use, and kept in memory for every batch processed afterwards.
+ * The instance is only shut down when the JVM stops.
+ * Besides the shared session, {@link MadamiraPool} creates further sessions to analyze batches in parallel.
+ */
+public class MadamiraSession {
+    /**
+     * MADAMIRA namespace as defined by its XML schema.
+     */
+    static final String MADAMIRA_NS = "edu.columbia.ccls.madamira.configuration";
+
+    /**
+     * Shared session, created on first use.
+     */
+    private static MadamiraSession session = null;
+
+    /**
+     * Wrapper holding the loaded MADAMIRA models.
+     */
+    private final MADAMIRAWrapper wrapper;
+
+    /**
+     * JAXB context used to marshal and unmarshal MADAMIRA inputs and outputs.
+     */
+    private final JAXBContext context;
+
+    /**
+     * Whether the session has been shut down.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Loads MADAMIRA and registers a hook that shuts it down when the JVM stops.
+     * @throws JAXBException If the JAXB context cannot be created
+     */
+    private MadamiraSession() throws JAXBException {
+        context = JAXBContext.newInstance(MADAMIRA_NS);
+        wrapper = new MADAMIRAWrapper();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                shutdown();
+            }
+        });
+    }
+
+    /**
+     * Returns the shared session, loading MADAMIRA if it has not been loaded yet.
+     * @return Shared MADAMIRA session
+     * @throws JAXBException If the JAXB context cannot be created
+     */
+    public static synchronized MadamiraSession getInstance() throws JAXBException {
+        if (session == null) {
+            session = new MadamiraSession();
+        }
+        return session;
+    }
+
+    /**
+     * Loads a new session, independent from the shared one. Each session holds its own copy of the MADAMIRA models.
+     * @return New MADAMIRA session
+     * @throws JAXBException If the JAXB context cannot be created
+     */
+    public static MadamiraSession create() throws JAXBException {
+        return new MadamiraSession();
+    }
+
+    /**
+     * Shuts the shared session down if it was ever loaded.
+     * Needed by short-lived programs, since MADAMIRA threads otherwise keep the JVM alive.
+     */
+    public static synchronized void shutdownShared() {
+        if (session != null) {
+            session.shutdown();
+        }
+    }
+
+    /**
+     * Returns the JAXB context of the MADAMIRA configuration classes.
+     * @return JAXB context
+     */
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * Runs MADAMIRA on the given input.
+     * @param input MADAMIRA input
+     * @return MADAMIRA output
+     * @throws InterruptedException If the MADAMIRA thread is interrupted
+     * @throws ExecutionException If the MADAMIRA task is aborted
+     */
+    public MadamiraOutput process(MadamiraInput input) throws InterruptedException, ExecutionException {
+        if (closed) {
+            throw new IllegalStateException("MADAMIRA session has been shut down");
+        }
+        return wrapper.processString(input);
+    }
+
+    /**
+     * Shuts MADAMIRA down. Called automatically when the JVM stops.
+     */
+    public synchronized void shutdown() {
+        if (!closed) {
+            closed = true;
+            wrapper.shutdown();
+        }
+    }
+}
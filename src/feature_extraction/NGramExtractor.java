@@ -3,44 +3,93 @@ import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 public class NGramExtractor {
 	/**
-	 * Unigram features.
+	 * Location of the feature dictionary that fixes the column of every n-gram feature.
+	 * It is saved next to the model, and compiled from the n-gram files if it does not exist.
 	 */
-	public static final HashSet<String> unigrams = getUnigrams();
+	private static final String DICTIONARY = Configuration.get().getResource("Model", "rbfc+2g-4.dict");
 
 	/**
-	 * Bigram features.
+	 * All n-gram feature sets by name, in the order of the feature vector, as read from the n-gram files.
+	 * They are only needed to compile the feature dictionary.
 	 */
-	public static final HashSet<String> bigrams = getBigrams();
+	public static final LazyResource<LinkedHashMap<String, HashSet<String>>> featureSets =
+			new LazyResource<LinkedHashMap<String, HashSet<String>>>("n-gram files") {
+		protected LinkedHashMap<String, HashSet<String>> load() {
+			LinkedHashMap<String, HashSet<String>> sets = new LinkedHashMap<String, HashSet<String>>();
+			sets.put("unigrams", getUnigrams());
+			sets.put("bigrams", getBigrams());
+			sets.put("trigrams", getTrigrams());
+			sets.put("fourgrams", getFourgrams());
+			sets.put("char_trigrams", getCharTrigrams());
+			sets.put("char_fourgrams", getCharFourgrams());
+			sets.put("char_fivegrams", getCharFivegrams());
+			return sets;
+		}
+	};
 
 	/**
-	 * Trigram features.
+	 * Feature dictionary of all n-gram feature sets.
 	 */
-	public static final HashSet<String> trigrams = getTrigrams();
+	public static final LazyResource<FeatureDictionary> dictionary = new LazyResource<FeatureDictionary>("feature dictionary") {
+		protected FeatureDictionary load() {
+			return FeatureDictionary.loadOrCompile(DICTIONARY, featureSets);
+		}
+	};
 
 	/**
-	 * Fourgram features.
+	 * Column of each unigram feature within the unigram features.
 	 */
-	public static final HashSet<String> fourgrams = getFourgrams();
+	public static final LazyResource<HashMap<String, Integer>> unigramIndex = index("unigrams");
 
 	/**
-	 * Character trigram features.
+	 * Column of each bigram feature within the bigram features.
 	 */
-	public static final HashSet<String> charTrigrams = getCharTrigrams();
+	public static final LazyResource<HashMap<String, Integer>> bigramIndex = index("bigrams");
 
 	/**
-	 * Character fourgram features.
+	 * Column of each trigram feature within the trigram features.
 	 */
-	public static final HashSet<String> charFourgrams = getCharFourgrams();
+	public static final LazyResource<HashMap<String, Integer>> trigramIndex = index("trigrams");
 
 	/**
-	 * Character fivegram features.
+	 * Column of each fourgram feature within the fourgram features.
 	 */
-	public static final HashSet<String> charFivegrams = getCharFivegrams();
+	public static final LazyResource<HashMap<String, Integer>> fourgramIndex = index("fourgrams");
+
+	/**
+	 * Column of each character trigram feature within the character trigram features.
+	 */
+	public static final LazyResource<HashMap<String, Integer>> charTrigramIndex = index("char_trigrams");
+
+	/**
+	 * Column of each character fourgram feature within the character fourgram features.
+	 */
+	public static final LazyResource<HashMap<String, Integer>> charFourgramIndex = index("char_fourgrams");
+
+	/**
+	 * Column of each character fivegram feature within the character fivegram features.
+	 */
+	public static final LazyResource<HashMap<String, Integer>> charFivegramIndex = index("char_fivegrams");
+
+	/**
+	 * Creates the resource that holds the columns of a feature set, taken from the feature dictionary.
+	 * @param name Name of the feature set
+	 * @return Resource of the HashMap from n-grams to their column
+	 */
+	private static LazyResource<HashMap<String, Integer>> index(final String name) {
+		return new LazyResource<HashMap<String, Integer>>(name) {
+			protected HashMap<String, Integer> load() {
+				return dictionary.get().getIndex(name);
+			}
+		};
+	}
 
 	/**
 	 * Extracts n-grams from String.
@@ -95,7 +144,7 @@ public class NGramExtractor {
     	HashSet<String> unigrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-	    					new FileInputStream("Resources\\N-Grams\\unigrams.txt"), "UTF-8"));
+	    					new FileInputStream(Configuration.get().getResource("N-Grams", "unigrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				unigrams.add(line);
@@ -116,7 +165,7 @@ public class NGramExtractor {
     	HashSet<String> bigrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream("Resources\\N-Grams\\bigrams.txt"), "UTF-8"));
+					new FileInputStream(Configuration.get().getResource("N-Grams", "bigrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				bigrams.add(line);
@@ -137,7 +186,7 @@ public class NGramExtractor {
     	HashSet<String> trigrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream("Resources\\N-Grams\\trigrams.txt"), "UTF-8"));
+					new FileInputStream(Configuration.get().getResource("N-Grams", "trigrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				trigrams.add(line);
@@ -158,7 +207,7 @@ public class NGramExtractor {
     	HashSet<String> fourgrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream("Resources\\N-Grams\\fourgrams.txt"), "UTF-8"));
+					new FileInputStream(Configuration.get().getResource("N-Grams", "fourgrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				fourgrams.add(line);
@@ -179,7 +228,7 @@ public class NGramExtractor {
     	HashSet<String> charTrigrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream("Resources\\N-Grams\\char_trigrams.txt"), "UTF-8"));
+					new FileInputStream(Configuration.get().getResource("N-Grams", "char_trigrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				charTrigrams.add(line);
@@ -200,7 +249,7 @@ public class NGramExtractor {
     	HashSet<String> charFourgrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream("Resources\\N-Grams\\char_fourgrams.txt"), "UTF-8"));
+					new FileInputStream(Configuration.get().getResource("N-Grams", "char_fourgrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				charFourgrams.add(line);
@@ -221,7 +270,7 @@ public class NGramExtractor {
     	HashSet<String> getCharFivegrams = new HashSet<String>();
     	try {
 	    	BufferedReader br = new BufferedReader(new InputStreamReader(
-					new FileInputStream("Resources\\N-Grams\\char_fivegrams.txt"), "UTF-8"));
+					new FileInputStream(Configuration.get().getResource("N-Grams", "char_fivegrams.txt")), "UTF-8"));
 			String line;
 			while ((line = br.readLine()) != null && line.length()!=0) {
 				getCharFivegrams.add(line);
@@ -1,50 +1,50 @@
 package feature_extraction;
+import java.util.BitSet;
 import java.util.Vector;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Negation {
 	/**
-	 * Given a sentence in the form of a Vector of words, it returns a Vector that specifies whether each word is negated.
+	 * Given a sentence in the form of a Vector of words, it sets in a BitSet which words are negated.
 	 * Every word between a negation term and the next punctuation is negated.
+	 * A word that is only punctuation and ends a negated context is skipped, so the number of flags can be smaller than the number of words.
 	 * @param words Sentence in the form of a Vector of words
-	 * @return Vector of Boolean values that specify whether each word is negated
+	 * @param negate BitSet in which the bits of negated words are set
+	 * @return Number of words for which a flag was computed
 	 */
-	public static Vector<Boolean> isNegated(Vector<String> words){
-		Vector<Boolean> negate = new Vector<Boolean>();
-		Vector<String> list = LexiconMapping.negationWords;
+	public static int markNegated(Vector<String> words, BitSet negate){
+		int length = 0;
+		Vector<String> list = LexiconMapping.negationWords.get();
 		
 		int index = 0;
 		while(index < words.size()){
 			//if negation term 
 			if(list.contains(words.elementAt(index))){
-				negate.addElement(false);
+				++length;
 				index++;
 				
 				while(index < words.size()){
-					Pattern pattern = Pattern.compile("[;:.,?!(]+");
 					String word = words.elementAt(index);
-					Matcher matcher = pattern.matcher(word);
+					Matcher matcher = Patterns.NEGATION_END.matcher(word);
 					index++;
 					if(matcher.find()){
 						//if not only punctuation
-						Pattern pattern2 = Pattern.compile("[\u0621-\u064A\u0660-\u0669 0-9a-zA-Z]");
-						Matcher matcher2 = pattern2.matcher(word);
+						Matcher matcher2 = Patterns.LETTER_OR_DIGIT.matcher(word);
 						if(matcher2.find())
 						{
-							negate.addElement(true);
+							negate.set(length++);
 						}
 						break;
 					}
 					else {
-						negate.addElement(true);
+						negate.set(length++);
 					}
 				}
 			}else{
-				negate.addElement(false);
+				++length;
 				index++;
 			}
 		}		
-		return negate;
+		return length;
 	}
 }
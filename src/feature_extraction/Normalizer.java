@@ -18,14 +18,14 @@ public class Normalizer {
 	 * @return Normalized tweet
 	 */
 	public static String normalizeURLs(String tweet) {
-		String normalized = "";
+		StringBuilder normalized = new StringBuilder(tweet.length());
 		String[] patterns = {"http://", "https://"};
 		
 		for (int i=0; i<2; ++i) {
 			int ind = tweet.indexOf(patterns[i]);
 			int start = 0;
 			while (ind != -1) {
-				normalized = normalized + tweet.substring(start,ind) + "يوارالتوكن";
+				normalized.append(tweet, start, ind).append("يوارالتوكن");
 				int indSpace = tweet.indexOf(' ', ind);
 				int indEnter = tweet.indexOf('\n', ind);
 				if (indSpace==indEnter) {
@@ -42,10 +42,10 @@ public class Normalizer {
 				ind = tweet.indexOf(patterns[i], start);
 			}
 
-			normalized = normalized + tweet.substring(start);
+			normalized.append(tweet, start, tweet.length());
 			
-			tweet = normalized;
-			normalized = "";
+			tweet = normalized.toString();
+			normalized.setLength(0);
 		}
 		return tweet;
 	}
@@ -65,17 +65,17 @@ public class Normalizer {
 	 * @return Normalized tweet
 	 */
 	public static String normalizeMentions(String tweet) {
-		String normalized = "";
+		StringBuilder normalized = new StringBuilder(tweet.length());
 		
 		int ind = tweet.indexOf("@");
 		int start = 0;
 		while (ind != -1) {
 			if (ind==0 || tweet.charAt(ind-1) == ' ' || tweet.charAt(ind-1) == '\n') {
-				normalized = normalized + tweet.substring(start,ind) + "منشنتوكن";
+				normalized.append(tweet, start, ind).append("منشنتوكن");
 				int indSpace = tweet.indexOf(' ', ind);
 				int indEnter = tweet.indexOf('\n', ind);
 				if (indSpace==indEnter) { // if they're both == -1 -> end of tweet
-					return normalized;
+					return normalized.toString();
 				}
 				else if	(indSpace < indEnter || indEnter==-1) {
 					start = indSpace;
@@ -87,15 +87,15 @@ public class Normalizer {
 			}
 			else {
 				if (ind != -1) {
-					normalized = normalized + tweet.substring(start,ind);
+					normalized.append(tweet, start, ind);
 				}
 				start = ind;
 				ind = tweet.indexOf("@", start+1);
 			}
 		}
-		normalized = normalized + tweet.substring(start);
+		normalized.append(tweet, start, tweet.length());
 	
-		return normalized;
+		return normalized.toString();
 	}
 	
 	/**
@@ -104,37 +104,7 @@ public class Normalizer {
 	 * @return Tweet with normalized numbers
 	 */
 	public static String normalizeNumbers(String tweet) {
-	    String normalized = "";
-		Pattern pattern = Pattern.compile("[0-9]+");
-        Matcher matcher = pattern.matcher(tweet);
-		
-		int start = 0;
-        while(matcher.find()) {
-			int end = matcher.start();
-            normalized = normalized + tweet.substring(start, end) + " " + matcher.group() + " ";
-			start = matcher.end()+1;
-        }
-        if (start < tweet.length()) {
-        	normalized += tweet.substring(start);
-        }
-        
-        tweet = normalized;
-
-	    normalized = "";
-		pattern = Pattern.compile("[\u0660-\u0669]+");
-        matcher = pattern.matcher(tweet);
-		
-		start = 0;
-        while(matcher.find()) {
-			int end = matcher.start();
-            normalized = normalized + tweet.substring(start, end) + " " + matcher.group() + " ";
-			start = matcher.end()+1;
-        }
-        if (start < tweet.length()) {
-        	normalized += tweet.substring(start);
-        }
-        
-        return normalized;
+		return spaceMatches(spaceMatches(tweet, Patterns.NUMBERS), Patterns.EASTERN_NUMBERS);
 	}
 	
 	/**
@@ -143,20 +113,29 @@ public class Normalizer {
 	 * @return Tweet with normalized Latin words
 	 */
 	public static String normalizeLatinLetters(String tweet) {
-	    String normalized = "";
-
-		Pattern pattern = Pattern.compile("[a-zA-Z]+");
-        Matcher matcher = pattern.matcher(tweet);
+		return spaceMatches(tweet, Patterns.LATIN_WORDS);
+	}
+	
+	/**
+	 * Adds a space before and after every match of a pattern.
+	 * The character that directly follows a match is replaced by the space.
+	 * @param tweet Input tweet
+	 * @param pattern Pattern to match
+	 * @return Tweet with spaced matches
+	 */
+	private static String spaceMatches(String tweet, Pattern pattern) {
+		StringBuilder normalized = new StringBuilder(tweet.length() + 16);
+		Matcher matcher = pattern.matcher(tweet);
 		
 		int start = 0;
-        while(matcher.find()) {
-			int end = matcher.start();
-            normalized = normalized + tweet.substring(start, end) + " " + matcher.group() + " ";
+		while(matcher.find()) {
+			normalized.append(tweet, start, matcher.start()).append(' ');
+			normalized.append(tweet, matcher.start(), matcher.end()).append(' ');
 			start = matcher.end()+1;
-        }
-        if (start < tweet.length()) {
-        	normalized += tweet.substring(start);
-        }
-        return normalized;
+		}
+		if (start < tweet.length()) {
+			normalized.append(tweet, start, tweet.length());
+		}
+		return normalized.toString();
 	}
 }
@@ -0,0 +1,65 @@
+package feature_extraction;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expressions used during preprocessing, compiled once.
+ * Patterns are immutable and can be shared between threads; only their matchers are not.
+ */
+public class Patterns {
+	/**
+	 * Western Arabic numbers (0-9).
+	 */
+	public static final Pattern NUMBERS = Pattern.compile("[0-9]+");
+
+	/**
+	 * Eastern Arabic numbers (٠-٩).
+	 */
+	public static final Pattern EASTERN_NUMBERS = Pattern.compile("[\u0660-\u0669]+");
+
+	/**
+	 * Latin words.
+	 */
+	public static final Pattern LATIN_WORDS = Pattern.compile("[a-zA-Z]+");
+
+	/**
+	 * Interrogation points.
+	 */
+	public static final Pattern INTERROGATION = Pattern.compile("[?؟]");
+
+	/**
+	 * Exclamation points.
+	 */
+	public static final Pattern EXCLAMATION = Pattern.compile("[!]");
+
+	/**
+	 * Interrogation point and exclamation point next to each other.
+	 */
+	public static final Pattern INTERROGATION_EXCLAMATION = Pattern.compile("(\\?!)|(!\\?)|(؟!)|(!؟)");
+
+	/**
+	 * Sequences of letters, digits, spaces and the punctuation marks that are kept when skipping some.
+	 */
+	public static final Pattern WORDS_WITH_SOME_PUNCTUATION = Pattern.compile("[\u0621-\u064A\u0660-\u0669 0-9a-zA-Z;:.,?!؟(]+");
+
+	/**
+	 * Punctuation marks that are kept when skipping some.
+	 */
+	public static final Pattern SOME_PUNCTUATION = Pattern.compile("[;:.,?!؟(]");
+
+	/**
+	 * Sequences of letters, digits and spaces.
+	 */
+	public static final Pattern WORDS = Pattern.compile("[\u0621-\u064A\u0660-\u0669 0-9a-zA-Z]+");
+
+	/**
+	 * A letter, a digit or a space.
+	 */
+	public static final Pattern LETTER_OR_DIGIT = Pattern.compile("[\u0621-\u064A\u0660-\u0669 0-9a-zA-Z]");
+
+	/**
+	 * Punctuation marks that end a negated context.
+	 * The inverted question mark stands where the Arabic question mark was lost to the encoding of Negation.java,
+	 * and is kept as is because the model was trained with it.
+	 */
+	public static final Pattern NEGATION_END = Pattern.compile("[;:.,?!\u00BF(]+");
+}
@@ -0,0 +1,148 @@
+package feature_extraction;
+
+/**
+ * Precomputed polarities of words, merged from ArSenL, AraSenTi and DAHL.
+ * Every word has a polarity as a lemma, from ArSenL, and a polarity as a normalized word, from AraSenTi or else DAHL.
+ * Both are packed in one byte and stored in a single open-addressing hash table, so looking a word up is a single probe sequence
+ * with no unboxing and no score comparison.
+ */
+public class PolarityDictionary {
+	/**
+	 * Polarities by code: 0 means that the word is not in the lexicon.
+	 */
+	private static final Polarity[] POLARITIES = {null, Polarity.Positive, Polarity.Negative, Polarity.Neutral};
+
+	/**
+	 * Number of bits used by a polarity code.
+	 */
+	private static final int BITS = 2;
+
+	/**
+	 * Mask of a polarity code.
+	 */
+	private static final int MASK = (1 << BITS) - 1;
+
+	/**
+	 * Words, at the position given by their hash. Empty slots are null.
+	 */
+	private final String[] words;
+
+	/**
+	 * Polarity codes of words: the lemma polarity in the low bits, the normalized word polarity in the next ones.
+	 */
+	private final byte[] codes;
+
+	/**
+	 * Number of words.
+	 */
+	private int size = 0;
+
+	/**
+	 * Builds the dictionary from the lexicons.
+	 * @param arsenl ArSenL, whose first score is the positivity score and second score is the negativity score
+	 * @param arasenti AraSenTi, whose score is positive for positive words and negative for negative ones
+	 * @param dahl DAHL, whose score is positive for positive words and negative for negative ones
+	 */
+	public PolarityDictionary(Lexicon arsenl, Lexicon arasenti, Lexicon dahl) {
+		int capacity = Integer.highestOneBit(Math.max(arsenl.size() + arasenti.size() + dahl.size(), 1)) * 4;
+		words = new String[capacity];
+		codes = new byte[capacity];
+
+		for (int i = 0; i < arsenl.size(); ++i) {
+			double pos = arsenl.getScore(i, 0);
+			double neg = arsenl.getScore(i, 1);
+			add(arsenl.getKey(i), code(pos > neg ? Polarity.Positive : neg > pos ? Polarity.Negative : Polarity.Neutral));
+		}
+		// AraSenTi has priority over DAHL
+		for (int i = 0; i < dahl.size(); ++i) {
+			add(dahl.getKey(i), code(scorePolarity(dahl.getScore(i, 0))) << BITS);
+		}
+		for (int i = 0; i < arasenti.size(); ++i) {
+			String word = arasenti.getKey(i);
+			int slot = slot(word);
+			if (words[slot] != null) {
+				codes[slot] &= MASK;
+			}
+			add(word, code(scorePolarity(arasenti.getScore(i, 0))) << BITS);
+		}
+	}
+
+	/**
+	 * Returns the polarity of a lemma according to ArSenL.
+	 * @param lemma Lemma
+	 * @return Polarity (null if the lemma is not in ArSenL)
+	 */
+	public Polarity getLemmaPolarity(String lemma) {
+		return POLARITIES[codes[slot(lemma)] & MASK];
+	}
+
+	/**
+	 * Returns the polarity of a normalized word according to AraSenTi, or DAHL if it is not in AraSenTi.
+	 * @param word Normalized word
+	 * @return Polarity (null if the word is in neither lexicon)
+	 */
+	public Polarity getWordPolarity(String word) {
+		return POLARITIES[(codes[slot(word)] >> BITS) & MASK];
+	}
+
+	/**
+	 * Returns the number of distinct words in the dictionary.
+	 * @return Number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the polarity given by a score that is positive for positive words and negative for negative ones.
+	 * @param score Score
+	 * @return Polarity
+	 */
+	private static Polarity scorePolarity(double score) {
+		return score > 0 ? Polarity.Positive : score < 0 ? Polarity.Negative : Polarity.Neutral;
+	}
+
+	/**
+	 * Returns the code of a polarity.
+	 * @param polarity Polarity
+	 * @return Code, between 1 and 3
+	 */
+	private static int code(Polarity polarity) {
+		for (int i = 1; i < POLARITIES.length; ++i) {
+			if (POLARITIES[i] == polarity) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown polarity " + polarity);
+	}
+
+	/**
+	 * Adds polarity codes to a word, inserting it if needed.
+	 * @param word Word
+	 * @param code Codes to add
+	 */
+	private void add(String word, int code) {
+		int slot = slot(word);
+		if (words[slot] == null) {
+			words[slot] = word;
+			++size;
+		}
+		codes[slot] |= code;
+	}
+
+	/**
+	 * Finds the slot of a word: the one that holds it, or the empty one where it would be inserted.
+	 * The table is always less than half full, so there is always an empty slot.
+	 * @param word Word
+	 * @return Slot
+	 */
+	private int slot(String word) {
+		int hash = word.hashCode();
+		hash ^= hash >>> 16;
+		int slot = hash & (words.length - 1);
+		while (words[slot] != null && !words[slot].equals(word)) {
+			slot = (slot + 1) & (words.length - 1);
+		}
+		return slot;
+	}
+}
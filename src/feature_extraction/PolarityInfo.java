@@ -1,4 +1,5 @@
 package feature_extraction;
+import java.util.BitSet;
 import java.util.Vector;
 
 public class PolarityInfo
@@ -9,103 +10,62 @@ public class PolarityInfo
 	 * - The second element is the number of negative words in the tweet
 	 * Polarities are looked up in ArSenL from lemmatized tweet.
 	 * If not found, they are looked up in AraSenTi then DAHL from normalized tweet.
+	 * Both lookups go through the precomputed polarities of LexiconMapping.polarities.
 	 * @param lemmatizedTweet Vector of lemmas
-	 * @param normalizedTweet Vector of normalized words
-	 * @param isNegated Vector of whether words are negated
+	 * @param normalizedTweet Array of normalized words
+	 * @param isNegated BitSet of whether words are negated
+	 * @param negationLength Number of words for which negation was computed
 	 * @return Vector of word polarities
 	 */
-	public static Vector<Integer> getWordsInfo(Vector<String> lemmatizedTweet, Vector<String> normalizedTweet, Vector<Boolean> isNegated)
+	public static Vector<Integer> getWordsInfo(Vector<String> lemmatizedTweet, String[] normalizedTweet, BitSet isNegated, int negationLength)
 	{
 		int numberOfWords = lemmatizedTweet.size();
 		Vector<Integer> out = new Vector<Integer>();
 		int positive = 0;
 		int negative = 0;
+		PolarityDictionary polarities = LexiconMapping.polarities.get();
 		for (int i=0; i<numberOfWords; ++i) {
-			Boolean negated;
-			try{
-				negated = isNegated.elementAt(i);
+			boolean negated;
+			if (i < negationLength) {
+				negated = isNegated.get(i);
 			}
-			catch(Exception e) {
+			else {
 				System.out.println("isNegated vector is not large enough. Please contact authors with output.");
-				e.printStackTrace();
 				negated=false;
 				for(String ss : lemmatizedTweet){
 					System.out.print(ss+" ");
 				}
 				System.out.println();
 			}
-			String word = lemmatizedTweet.elementAt(i);
-			if (LexiconMapping.arsenl.containsKey(word)) {
-				Polarity pol = getPolarity(LexiconMapping.arsenl.get(word));
-				if (pol == Polarity.Positive) {
-					if(negated == false){
-						++positive;
-					}else{
-						++negative;
-					}
-				}
-				else if (pol == Polarity.Negative) {
-					if(negated == false){
-						++negative;
-					}else{
-						++positive;
-					}
-				}
-			}
-			else
+			Polarity pol = polarities.getLemmaPolarity(lemmatizedTweet.elementAt(i));
+			if (pol == null)
 			{
-				try{
-					word = normalizedTweet.elementAt(i);
+				String word;
+				if (i < normalizedTweet.length) {
+					word = normalizedTweet[i];
 				}
-				catch(Exception e) {					
+				else {
 					System.out.println("normalizedTweet vector is not large enough. Please contact authors with output.");
-					e.printStackTrace();
 					word = "";
 					for(String ss : normalizedTweet){
 						System.out.print(ss+" ");
 					}
 					System.out.println();
 				}
-				if (LexiconMapping.arasenti.containsKey(word))
-				{
-					double pol = LexiconMapping.arasenti.get(word);
-					
-					if (pol > 0)
-					{
-						if(!negated){
-							++positive;
-						}else{
-							++negative;
-						}
-					}
-					else if (pol < 0)
-					{
-						if(!negated){
-							++negative;
-						}else{
-							++positive;
-						}
-					}
+				pol = polarities.getWordPolarity(word);
+			}
+			if (pol == Polarity.Positive) {
+				if(!negated){
+					++positive;
+				}else{
+					++negative;
 				}
-				else if (LexiconMapping.dahl.containsKey(word))
-				{
-					double pol = LexiconMapping.dahl.get(word);
-					if (pol > 0)
-					{
-						if(!negated){
-							++positive;
-						}else{
-							++negative;
-						}
-					}
-					else if (pol < 0)
-					{
-						if(!negated){
-							++negative;
-						}else{
-							++positive;
-						}
-					}
+			}
+			else if (pol == Polarity.Negative) {
+				if(!negated){
+					++negative;
+				}else{
+					++positive;
 				}
 			}
 		}
@@ -121,11 +81,11 @@ public class PolarityInfo
 	 * - The second element is the number of negative emoticons/emojis in the tweet
 	 * Emoticon polarities are looked up in our own lists.
 	 * Emoji polarities are looked up in Emoji Sentiment Ranking.
-	 * @param emoticons Vector of emoticons in tweet
-	 * @param emojis Vector of emojis in tweet
+	 * @param emoticons Array of emoticons in tweet
+	 * @param emojis Array of emojis in tweet
 	 * @return Vector of emoticon/emoji polarities
 	 */
-	public static Vector<Integer> getEmoticonsInfo(Vector<String> emoticons, Vector<String> emojis) {
+	public static Vector<Integer> getEmoticonsInfo(String[] emoticons, String[] emojis) {
 		Vector<Integer> out = new Vector<Integer>();
 		int positives = 0;
 		int negatives = 0;
@@ -139,9 +99,11 @@ public class PolarityInfo
 			}
 		}
 		
+		Lexicon emojisLexicon = LexiconMapping.emojisLexicon.get();
 		for (String e : emojis) {
-			if (LexiconMapping.emojisLexicon.containsKey(e)) {
-				Polarity pol = getPolarity(LexiconMapping.emojisLexicon.get(e));
+			int index = emojisLexicon.indexOf(e);
+			if (index != -1) {
+				Polarity pol = getPolarity(emojisLexicon, index);
 				if (pol == Polarity.Positive) {
 					++positives;
 				}
@@ -157,15 +119,16 @@ public class PolarityInfo
 	}
 	
 	/**
-	 * Given a vector of scores (like those of ArSenL and Emoji Sentiment Ranking), returns the polarity.
+	 * Given the scores of a word in a lexicon (like ArSenL and Emoji Sentiment Ranking), returns the polarity.
 	 * The polarity is positive if it is more positive than negative.
 	 * The polarity is negative if it is more negative than positive.
-	 * @param scores Polarity vector
-	 * @return Polarity that corresponds to the vector (null if word is as likely to be positive as it is to be negative)
+	 * @param lexicon Lexicon whose first score is the positivity score and second score is the negativity score
+	 * @param index Position of the word in the lexicon
+	 * @return Polarity that corresponds to the scores (null if word is as likely to be positive as it is to be negative)
 	 */
-	private static Polarity getPolarity(Vector<Double> scores) {
-		double pos = scores.get(0);
-		double neg = scores.get(1);
+	private static Polarity getPolarity(Lexicon lexicon, int index) {
+		double pos = lexicon.getScore(index, 0);
+		double neg = lexicon.getScore(index, 1);
 		if (pos > neg) { // if a word has a + score that is twice as much as its - score
 			return Polarity.Positive;
 		}
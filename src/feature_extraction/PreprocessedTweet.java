@@ -0,0 +1,214 @@
+package feature_extraction;
+import java.util.BitSet;
+
+/**
+ * Output of preprocessing for a single tweet.
+ * Words are kept in arrays and counts in primitive fields, so that large batches of tweets stay compact in memory.
+ * Arrays are shared, not copied, and must not be modified.
+ */
+public class PreprocessedTweet {
+	/**
+	 * Words in original tweet.
+	 */
+	private final String[] original;
+
+	/**
+	 * Words in normalized tweet.
+	 */
+	private final String[] normalized;
+
+	/**
+	 * Parsed hashtags, each as an array of words.
+	 */
+	private final String[][] hashtags;
+
+	/**
+	 * Emojis in tweet.
+	 */
+	private final String[] emojis;
+
+	/**
+	 * Emoticons in tweet.
+	 */
+	private final String[] emoticons;
+
+	/**
+	 * Whether each word is negated, as computed by Negation.markNegated.
+	 */
+	private final BitSet negated;
+
+	/**
+	 * Number of words for which negation was computed.
+	 */
+	private final int negationLength;
+
+	/**
+	 * Whether the tweet contains a URL.
+	 */
+	private final boolean urls;
+
+	/**
+	 * Whether the tweet contains a user mention.
+	 */
+	private final boolean mentions;
+
+	/**
+	 * Number of interrogation points.
+	 */
+	private final int interrogations;
+
+	/**
+	 * Number of exclamation points.
+	 */
+	private final int exclamations;
+
+	/**
+	 * Number of both interrogation and exclamation points.
+	 */
+	private final int interrogationsAndExclamations;
+
+	/**
+	 * Number of elongated words in the original tweet.
+	 */
+	private final int elongated;
+
+	/**
+	 * Creates the preprocessing output of a tweet.
+	 * @param original Words in original tweet
+	 * @param normalized Words in normalized tweet
+	 * @param hashtags Parsed hashtags, each as an array of words
+	 * @param emojis Emojis in tweet
+	 * @param emoticons Emoticons in tweet
+	 * @param negated Whether each word is negated
+	 * @param negationLength Number of words for which negation was computed
+	 * @param urls Whether the tweet contains a URL
+	 * @param mentions Whether the tweet contains a user mention
+	 * @param interrogations Number of interrogation points
+	 * @param exclamations Number of exclamation points
+	 * @param interrogationsAndExclamations Number of both interrogation and exclamation points
+	 * @param elongated Number of elongated words in the original tweet
+	 */
+	PreprocessedTweet(String[] original, String[] normalized, String[][] hashtags, String[] emojis, String[] emoticons,
+			BitSet negated, int negationLength, boolean urls, boolean mentions,
+			int interrogations, int exclamations, int interrogationsAndExclamations, int elongated) {
+		this.original = original;
+		this.normalized = normalized;
+		this.hashtags = hashtags;
+		this.emojis = emojis;
+		this.emoticons = emoticons;
+		this.negated = negated;
+		this.negationLength = negationLength;
+		this.urls = urls;
+		this.mentions = mentions;
+		this.interrogations = interrogations;
+		this.exclamations = exclamations;
+		this.interrogationsAndExclamations = interrogationsAndExclamations;
+		this.elongated = elongated;
+	}
+
+	/**
+	 * Returns the words in original tweet.
+	 * @return Array of words
+	 */
+	public String[] getOriginal() {
+		return original;
+	}
+
+	/**
+	 * Returns the words in normalized tweet.
+	 * @return Array of words
+	 */
+	public String[] getNormalized() {
+		return normalized;
+	}
+
+	/**
+	 * Returns the parsed hashtags.
+	 * @return Array of hashtags, each as an array of words
+	 */
+	public String[][] getHashtags() {
+		return hashtags;
+	}
+
+	/**
+	 * Returns the emojis in tweet.
+	 * @return Array of emojis
+	 */
+	public String[] getEmojis() {
+		return emojis;
+	}
+
+	/**
+	 * Returns the emoticons in tweet.
+	 * @return Array of emoticons
+	 */
+	public String[] getEmoticons() {
+		return emoticons;
+	}
+
+	/**
+	 * Returns whether the words are negated.
+	 * Only the first getNegationLength() bits are meaningful.
+	 * @return BitSet where a set bit means that the word is negated
+	 */
+	public BitSet getNegated() {
+		return negated;
+	}
+
+	/**
+	 * Returns the number of words for which negation was computed.
+	 * It can be smaller than the number of normalized words, since words that are only punctuation are skipped after a negated context.
+	 * @return Number of words
+	 */
+	public int getNegationLength() {
+		return negationLength;
+	}
+
+	/**
+	 * Indicates whether the tweet contains a URL.
+	 * @return Whether the tweet contains a URL
+	 */
+	public boolean hasURL() {
+		return urls;
+	}
+
+	/**
+	 * Indicates whether the tweet contains a user mention.
+	 * @return Whether the tweet contains a user mention
+	 */
+	public boolean hasMention() {
+		return mentions;
+	}
+
+	/**
+	 * Returns the number of interrogation points.
+	 * @return Number of interrogation points
+	 */
+	public int getInterrogations() {
+		return interrogations;
+	}
+
+	/**
+	 * Returns the number of exclamation points.
+	 * @return Number of exclamation points
+	 */
+	public int getExclamations() {
+		return exclamations;
+	}
+
+	/**
+	 * Returns the number of both interrogation and exclamation points.
+	 * @return Number of both interrogation and exclamation points
+	 */
+	public int getInterrogationsAndExclamations() {
+		return interrogationsAndExclamations;
+	}
+
+	/**
+	 * Returns the number of elongated words in the original tweet.
+	 * @return Number of elongated words
+	 */
+	public int getElongated() {
+		return elongated;
+	}
+}
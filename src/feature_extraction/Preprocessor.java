@@ -1,135 +1,119 @@
 package feature_extraction;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class Preprocessor {
 	/**
-	 * Performs all necessary preprocessing steps on given tweet, and returns a HashMap:
-	 * From -> To
-	 * negated -> Vector of Booleans that specifies whether each word is negated
-	 * emojis -> Vector of emojis
-	 * emoticons -> Vector of emoticons
-	 * original -> Vector of words in original tweet
-	 * hashtags -> Vector of parsed hashtags (each in a Vector)
-	 * normalized -> Vector of words in normalized tweet
-	 * urls -> Boolean that specifies whether the tweet contains a URL
-	 * mentions -> Boolean that specifies whether the tweet contains a user mention
-	 * ? -> Integer that specifies the number of interrogation points
-	 * ! -> Integer that specifies the number of exclamation points
-	 * ?! -> Integer that specifies the number of both interrogation and exclamation points
-	 * elongated -> Integer that specifies the number of elongated words in the original tweet
+	 * Number of tweets preprocessed by every task when preprocessing in parallel.
+	 */
+	private static final int TWEETS_PER_TASK = 64;
+
+	/**
+	 * Preprocesses all given tweets in parallel on the given executor.
+	 * Results are identical to calling preprocess on every tweet, and are in the same order as the input.
+	 * @param tweets Input tweets
+	 * @param executor Executor that runs the preprocessing tasks
+	 * @return Vector of preprocessing outputs, as returned by preprocess
+	 * @throws InterruptedException If interrupted while waiting for the tasks
+	 * @throws ExecutionException If preprocessing a tweet failed
+	 */
+	public static Vector<PreprocessedTweet> preprocessAll(final Vector<String> tweets, ExecutorService executor)
+			throws InterruptedException, ExecutionException {
+		final int nbOfTweets = tweets.size();
+		final Vector<PreprocessedTweet> preprocessed = new Vector<PreprocessedTweet>(nbOfTweets);
+		preprocessed.setSize(nbOfTweets);
+		
+		Vector<Future<Void>> tasks = new Vector<Future<Void>>();
+		for (int start = 0; start < nbOfTweets; start += TWEETS_PER_TASK) {
+			final int from = start;
+			final int to = Math.min(start + TWEETS_PER_TASK, nbOfTweets);
+			tasks.add(executor.submit(new Callable<Void>() {
+				public Void call() {
+					for (int i = from; i < to; ++i) {
+						preprocessed.set(i, preprocess(tweets.elementAt(i)));
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<Void> task : tasks) {
+			task.get();
+		}
+		return preprocessed;
+	}
+
+	/**
+	 * Performs all necessary preprocessing steps on given tweet:
+	 * emojis and emoticons are extracted, the tweet is normalized and split into words,
+	 * hashtags are parsed, and negated words, URLs, mentions, punctuation and elongated words are found.
 	 * @param tweet Input tweet
-	 * @return HashMap of all needed outputs
+	 * @return Preprocessing output
 	 */
-	public static HashMap<String,Object> preprocess(String tweet)
+	public static PreprocessedTweet preprocess(String tweet)
 	{
-		HashMap<String,Object> preprocessed = new HashMap<String,Object>();
-
 		Vector<String> original = new Vector<String>();
-		Vector<Vector<String>> hashtags = new Vector<Vector<String>>();
+		Vector<String[]> hashtags = new Vector<String[]>();
 		Vector<String> normalized = new Vector<String>();
 		
 		Vector<String> emojis = EmojiExtractor.getEmojis(tweet);
 		tweet = EmojiExtractor.normalizeAllEmojis(tweet);
 
-		Vector<String> emoticons = EmoticonExtractor.getEmoticons(tweet);
-		tweet = EmoticonExtractor.normalizeAllEmoticons(tweet);
-
-		HashMap<String,Integer> punctuation = PunctuationExtractor.getPunctuation(tweet);
-		
-		boolean hasURLs = Normalizer.hasURL(tweet);
-		
-		if (hasURLs) {	
-			tweet = Normalizer.normalizeURLs(tweet);
-		}
-		
-		boolean hasMentions = Normalizer.hasMention(tweet);
-		
-		if (hasMentions) {
-			tweet = Normalizer.normalizeMentions(tweet);
-		}
+		EmoticonMatches emoticonMatches = EmoticonExtractor.extract(tweet);
+		Vector<String> emoticons = emoticonMatches.getEmoticons();
+		tweet = emoticonMatches.getNormalized();
 
-		tweet = Normalizer.normalizeNumbers(tweet);
-		tweet = Normalizer.normalizeLatinLetters(tweet);
+		TweetScanner scanner = new TweetScanner(tweet);
+		boolean hasURLs = scanner.hasURL();
+		boolean hasMentions = scanner.hasMention();
 		
 		int numberOfElongatedWords = 0;
 		
-		int i = 0;
-		int tweetLength = tweet.length();
-		
 		Vector<String> normalizedWithPunctuation = new Vector<String>();
 		
-		while (i < tweetLength)
+		for (String word : scanner.getWords())
 		{
-			String word = "";
-			char currentChar = tweet.charAt(i);
-			while(currentChar == ' ' || currentChar == '\n' || currentChar == '\t')
-			{
-				++i;
-				if (i < tweetLength) {
-					currentChar = tweet.charAt(i);
-				}
-				else {
-					break;
-				}
+			original.addElement(word);
+
+			String normalizedWord = ElongationExtractor.removeElongation(word);
+			
+			if (!normalizedWord.equals(word)) {
+				numberOfElongatedWords++;
+				word = normalizedWord;
 			}
-			while(currentChar != ' ' && currentChar != '\n' && currentChar != '\t')
+			
+			if (word.charAt(0) == '#')
 			{
-				word = word + currentChar;
-				++i;
-				if (i < tweetLength) {
-					currentChar = tweet.charAt(i);
-				}
-				else {
-					break;
-				}
+				word = PunctuationExtractor.replaceAllPunctuationsWithSpace(word, false);
+				Vector <String> hashtag = extractWords(word);
+				hashtags.addElement(hashtag.toArray(new String[hashtag.size()]));
+				normalized.addElement("هاشتاغتوكن");
+				normalizedWithPunctuation.addElement("هاشتاغتوكن");
 			}
-			
-			if (word.length()!=0) {
-				original.addElement(word);
-
-				String normalizedWord = ElongationExtractor.removeElongation(word);
-				
-				if (!normalizedWord.equals(word)) {
-					numberOfElongatedWords++;
-					word = normalizedWord;
-				}
-				
-				if (word.charAt(0) == '#')
-				{
-					word = PunctuationExtractor.replaceAllPunctuationsWithSpace(word, false);
-					Vector <String> hashtag = extractWords(word);
-					hashtags.addElement(hashtag);
-					normalized.addElement("هاشتاغتوكن");
-					normalizedWithPunctuation.addElement("هاشتاغتوكن");
-				}
-				else
-				{
-					String wordWithSomePunc = PunctuationExtractor.replaceAllPunctuationsWithSpace(word, true);
-					Vector<String> words = extractWords(wordWithSomePunc);
-					normalizedWithPunctuation.addAll(words);
-					
-					word = PunctuationExtractor.replaceAllPunctuationsWithSpace(word, false);
-					words = extractWords(word);
-					normalized.addAll(words);
-				}
+			else
+			{
+				String wordWithSomePunc = PunctuationExtractor.replaceAllPunctuationsWithSpace(word, true);
+				Vector<String> words = extractWords(wordWithSomePunc);
+				normalizedWithPunctuation.addAll(words);
 				
+				word = PunctuationExtractor.replaceAllPunctuationsWithSpace(word, false);
+				words = extractWords(word);
+				normalized.addAll(words);
 			}
 		}
 		
-		preprocessed.put("negated", Negation.isNegated(normalizedWithPunctuation));
-		preprocessed.put("emojis", emojis);
-		preprocessed.put("original", original);
-		preprocessed.put("hashtags", hashtags);
-		preprocessed.put("normalized", normalized);
-		preprocessed.put("urls", hasURLs);
-		preprocessed.put("mentions", hasMentions);
-		preprocessed.put("emoticons", emoticons);
-		preprocessed.put("?", punctuation.get("?"));
-		preprocessed.put("!", punctuation.get("!"));
-		preprocessed.put("?!", punctuation.get("?!"));
-		preprocessed.put("elongated", numberOfElongatedWords);
-		return preprocessed;
+		BitSet negated = new BitSet();
+		int negationLength = Negation.markNegated(normalizedWithPunctuation, negated);
+		
+		return new PreprocessedTweet(original.toArray(new String[original.size()]),
+				normalized.toArray(new String[normalized.size()]), hashtags.toArray(new String[hashtags.size()][]),
+				emojis.toArray(new String[emojis.size()]), emoticons.toArray(new String[emoticons.size()]),
+				negated, negationLength, hasURLs, hasMentions,
+				scanner.getInterrogations(), scanner.getExclamations(),
+				scanner.getInterrogationsAndExclamations(), numberOfElongatedWords);
 	}
 	
 	/**
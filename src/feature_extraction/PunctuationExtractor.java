@@ -1,7 +1,6 @@
 package feature_extraction;
 import java.util.HashMap;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class PunctuationExtractor {
 	/**
@@ -12,20 +11,17 @@ public class PunctuationExtractor {
 	public static HashMap<String,Integer> getPunctuation(String tweet) {
 		HashMap<String,Integer> punc = new HashMap<String,Integer>();
 		int nbOfInterrogation = 0;
-		Pattern pattern = Pattern.compile("[?؟]");
-		Matcher matcher = pattern.matcher(tweet);
+		Matcher matcher = Patterns.INTERROGATION.matcher(tweet);
 		while(matcher.find()) {
 		   ++nbOfInterrogation;
 		}
 		int nbOfExclamation = 0;
-		pattern = Pattern.compile("[!]");
-		matcher = pattern.matcher(tweet);
+		matcher = Patterns.EXCLAMATION.matcher(tweet);
 		while(matcher.find()) {
 		   ++nbOfExclamation;
 		}
 		int nbOfBoth = 0;
-		pattern = Pattern.compile("(\\?!)|(!\\?)|(؟!)|(!؟)");
-		matcher = pattern.matcher(tweet);
+		matcher = Patterns.INTERROGATION_EXCLAMATION.matcher(tweet);
 		while(matcher.find()) {
 		   ++nbOfBoth;
 		}
@@ -42,37 +38,33 @@ public class PunctuationExtractor {
 	 * @return Cleaned tweet
 	 */
 	public static String replaceAllPunctuationsWithSpace(String tweet, boolean skipSome) {
-		Pattern pattern;
 		if (skipSome)
 		{
-			pattern = Pattern.compile("[\u0621-\u064A\u0660-\u0669 0-9a-zA-Z;:.,?!؟(]+");
-			Matcher matcher = pattern.matcher(tweet);
-			String fixedTweet = "";
+			Matcher matcher = Patterns.WORDS_WITH_SOME_PUNCTUATION.matcher(tweet);
+			Matcher matcher2 = Patterns.SOME_PUNCTUATION.matcher(tweet);
+			StringBuilder fixedTweet = new StringBuilder(tweet.length() * 2);
 			while(matcher.find()) {
-				String word = matcher.group();
-				Pattern pattern2 = Pattern.compile("[;:.,?!؟(]");
-				Matcher matcher2 = pattern2.matcher(word);
-				int start = 0;
+				matcher2.region(matcher.start(), matcher.end());
+				int start = matcher.start();
 				while (matcher2.find()) {
 					int end = matcher2.start()+1;
-					fixedTweet = fixedTweet + word.substring(start, end) + " ";
+					fixedTweet.append(tweet, start, end).append(' ');
 					start = end;
 				}
-				if (start < word.length()) {
-					fixedTweet = fixedTweet + word.substring(start) + " ";
+				if (start < matcher.end()) {
+					fixedTweet.append(tweet, start, matcher.end()).append(' ');
 				}
 			}
-			return fixedTweet;
+			return fixedTweet.toString();
 		}
 		else
 		{
-			pattern = Pattern.compile("[\u0621-\u064A\u0660-\u0669 0-9a-zA-Z]+");
-			Matcher matcher = pattern.matcher(tweet);
-			String fixedTweet = "";
+			Matcher matcher = Patterns.WORDS.matcher(tweet);
+			StringBuilder fixedTweet = new StringBuilder(tweet.length() + 1);
 			while(matcher.find()) {
-				fixedTweet = fixedTweet + matcher.group() + " ";
+				fixedTweet.append(tweet, matcher.start(), matcher.end()).append(' ');
 			}
-			return fixedTweet;
+			return fixedTweet.toString();
 		}
 		
 	}
@@ -0,0 +1,134 @@
+package feature_extraction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Registry of the resources used for feature extraction, grouped by what needs them.
+ * Every resource is loaded on first use; the registry allows loading the resources of a mode ahead of time, in the background,
+ * and evicting the resources a mode does not need.
+ */
+public class ResourceRegistry {
+	/**
+	 * Thread that loads resources in the background, or null if none was started.
+	 */
+	private static Thread preloading = null;
+
+	/**
+	 * Returns the resources needed to preprocess tweets.
+	 * @return List of resources
+	 */
+	public static List<LazyResource<?>> getPreprocessingResources() {
+		return Arrays.<LazyResource<?>>asList(LexiconMapping.negationWords);
+	}
+
+	/**
+	 * Returns the resources needed to extract n-gram features.
+	 * @return List of resources
+	 */
+	public static List<LazyResource<?>> getNgramResources() {
+		return Arrays.<LazyResource<?>>asList(NGramExtractor.unigramIndex, NGramExtractor.bigramIndex,
+				NGramExtractor.trigramIndex, NGramExtractor.fourgramIndex, NGramExtractor.charTrigramIndex,
+				NGramExtractor.charFourgramIndex, NGramExtractor.charFivegramIndex);
+	}
+
+	/**
+	 * Returns the resources needed to extract lexicon features.
+	 * @return List of resources
+	 */
+	public static List<LazyResource<?>> getLexiconResources() {
+		return Arrays.<LazyResource<?>>asList(LexiconMapping.polarities, LexiconMapping.emojisLexicon);
+	}
+
+	/**
+	 * Returns the resources needed to extract features in a given mode.
+	 * @param onlyNgrams Whether only n-gram features are extracted, or all features
+	 * @return List of resources
+	 */
+	public static List<LazyResource<?>> getResources(boolean onlyNgrams) {
+		List<LazyResource<?>> resources = new Vector<LazyResource<?>>();
+		resources.addAll(getPreprocessingResources());
+		resources.addAll(getNgramResources());
+		if (!onlyNgrams) {
+			resources.addAll(getLexiconResources());
+		}
+		return resources;
+	}
+
+	/**
+	 * Returns all resources, including the intermediate ones that other resources are built from.
+	 * @return List of resources
+	 */
+	public static List<LazyResource<?>> getAllResources() {
+		List<LazyResource<?>> resources = new Vector<LazyResource<?>>();
+		resources.addAll(getResources(false));
+		resources.addAll(Arrays.<LazyResource<?>>asList(NGramExtractor.featureSets, NGramExtractor.dictionary,
+				LexiconMapping.lexicons, LexiconMapping.arsenl, LexiconMapping.arasenti, LexiconMapping.dahl));
+		return resources;
+	}
+
+	/**
+	 * Loads resources in a background thread, so that they are ready by the time they are used.
+	 * A resource that is used before it is loaded is loaded by its user, and the two never load it twice.
+	 * Only one thread is started at a time, and none once every resource is loaded, so this can be called on every batch.
+	 * @param resources Resources to load
+	 * @return Thread that loads resources, already started, or null if the given resources are all loaded
+	 */
+	public static synchronized Thread preload(List<LazyResource<?>> resources) {
+		final List<LazyResource<?>> missing = new Vector<LazyResource<?>>();
+		for (LazyResource<?> resource : resources) {
+			if (!resource.isLoaded()) {
+				missing.add(resource);
+			}
+		}
+		if (missing.isEmpty()) {
+			return null;
+		}
+		if (preloading != null && preloading.isAlive()) {
+			// resources it does not cover are loaded on first use
+			return preloading;
+		}
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				for (LazyResource<?> resource : missing) {
+					try {
+						resource.get();
+					}
+					catch (RuntimeException e) {
+						System.out.println("Could not preload " + resource.getName() + ".");
+						e.printStackTrace();
+					}
+				}
+			}
+		}, "preloading");
+		thread.setDaemon(true);
+		thread.start();
+		preloading = thread;
+		return thread;
+	}
+
+	/**
+	 * Evicts the given resources.
+	 * @param resources Resources to evict
+	 */
+	public static void evict(List<LazyResource<?>> resources) {
+		for (LazyResource<?> resource : resources) {
+			resource.evict();
+		}
+	}
+
+	/**
+	 * Evicts all resources except the given ones.
+	 * Intermediate resources are evicted as well: resources already built from them do not need them anymore,
+	 * and the others load them again if needed.
+	 * Useful when a long-running process switches to a mode that needs fewer resources.
+	 * @param needed Resources to keep
+	 */
+	public static void evictAllExcept(List<LazyResource<?>> needed) {
+		for (LazyResource<?> resource : getAllResources()) {
+			if (!needed.contains(resource)) {
+				resource.evict();
+			}
+		}
+	}
+}
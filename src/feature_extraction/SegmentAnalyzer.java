@@ -0,0 +1,229 @@
+package feature_extraction;
+import edu.columbia.ccls.madamira.configuration.InSeg;
+import edu.columbia.ccls.madamira.configuration.MadamiraOutput;
+import edu.columbia.ccls.madamira.configuration.OutSeg;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Morphological analysis of preprocessed tweets, going through the segment cache:
+ * only segments that are not in the cache are sent to Madamira, and segments with the same text,
+ * like a hashtag used by many tweets, are sent once per batch.
+ * In word mode, segments that are not in the cache are not sent as they are: their words are analyzed out of context,
+ * each one once, and only words that are not in the word cache are sent to Madamira.
+ * This is much faster, since the vocabulary of tweets is small compared to their number, but lemmas and POS tags
+ * of ambiguous words can differ from the ones given in context.
+ */
+public class SegmentAnalyzer {
+	/**
+	 * Whether segments that are not cached are analyzed word by word.
+	 */
+	private static volatile boolean wordMode = Configuration.get().isWordAnalysis();
+
+	/**
+	 * Number of words sent to Madamira by the word mode.
+	 */
+	private static final AtomicLong wordsSent = new AtomicLong();
+
+	/**
+	 * Sets whether segments that are not cached are analyzed word by word, out of context.
+	 * Defaults to analysis.mode in the configuration.
+	 * @param enabled Whether the word mode is used
+	 */
+	public static void setWordMode(boolean enabled) {
+		wordMode = enabled;
+	}
+
+	/**
+	 * Indicates whether segments that are not cached are analyzed word by word.
+	 * @return Whether the word mode is used
+	 */
+	public static boolean isWordMode() {
+		return wordMode;
+	}
+
+	/**
+	 * Returns the number of words sent to Madamira by the word mode since the JVM started,
+	 * which are the words that were not in the word cache.
+	 * @return Number of words
+	 */
+	public static long getWordsSent() {
+		return wordsSent.get();
+	}
+
+	/**
+	 * Analyzes preprocessed tweets, and their hashtags if needed.
+	 * The output is a HashMap with the same content as the one returned by XMLParser.parseOutput.
+	 * @param preprocessed Vector of preprocessed tweets
+	 * @param withHashtags Whether Hashtags should be lemmatized as well
+	 * @return Output HashMap
+	 * @throws Exception If Madamira input cannot be built or Madamira fails
+	 */
+	public static HashMap<String, Object> analyze(Vector<PreprocessedTweet> preprocessed, boolean withHashtags)
+			throws Exception {
+		SegmentCache cache = SegmentCache.getShared();
+		Vector<InSeg> segments = XMLParser.buildSegments(preprocessed, withHashtags);
+		AnalyzedSegment[] analyzed = new AnalyzedSegment[segments.size()];
+
+		// segments that are not cached, each distinct text once, with the positions of every segment that has this text:
+		// popular hashtags are used by many tweets of a batch
+		LinkedHashMap<String, Vector<Integer>> missingTexts = new LinkedHashMap<String, Vector<Integer>>();
+		Vector<InSeg> missing = new Vector<InSeg>();
+		for (int i = 0; i < segments.size(); ++i) {
+			String text = segments.get(i).getValue();
+			Vector<Integer> indexes = missingTexts.get(text);
+			if (indexes == null) {
+				analyzed[i] = cache.get(text);
+				if (analyzed[i] != null) {
+					continue;
+				}
+				indexes = new Vector<Integer>();
+				missingTexts.put(text, indexes);
+				missing.add(segments.get(i));
+			}
+			indexes.add(i);
+		}
+
+		Vector<AnalyzedSegment> results = wordMode ? analyzeByWord(missing) : process(missing);
+		for (int j = 0; j < missing.size(); ++j) {
+			String text = missing.get(j).getValue();
+			for (int i : missingTexts.get(text)) {
+				analyzed[i] = results.get(j);
+			}
+			if (!wordMode) {
+				cache.put(text, results.get(j));
+			}
+		}
+		return XMLParser.assemble(Arrays.asList(analyzed), preprocessed, withHashtags);
+	}
+
+	/**
+	 * Analyzes segments word by word, out of context, sending to Madamira only the words that are not in the word cache.
+	 * The POS tag of a word that was not lemmatized is the one of the word before it, as when analyzing the whole segment:
+	 * words are put back together in the order of the segment, and the words that Madamira left untagged at the beginning of
+	 * a word analyzed on its own take the last POS tag of the words before it.
+	 * Results are not added to the segment cache, which only holds analyses made in context.
+	 * @param segments Input segments
+	 * @return Analyzed segments, in the same order
+	 * @throws Exception If Madamira input cannot be built or Madamira fails
+	 */
+	private static Vector<AnalyzedSegment> analyzeByWord(List<InSeg> segments) throws Exception {
+		SegmentCache cache = SegmentCache.getSharedWords();
+		HashMap<String, AnalyzedSegment> words = new HashMap<String, AnalyzedSegment>();
+		Vector<InSeg> missing = new Vector<InSeg>();
+		Vector<String[]> segmentWords = new Vector<String[]>();
+		for (InSeg segment : segments) {
+			String[] split = split(segment.getValue());
+			segmentWords.add(split);
+			for (String word : split) {
+				if (!words.containsKey(word)) {
+					AnalyzedSegment analyzed = cache.get(word);
+					words.put(word, analyzed);
+					if (analyzed == null) {
+						missing.add(XMLParser.segment("word" + missing.size(), new String[] {word}));
+					}
+				}
+			}
+		}
+
+		Vector<AnalyzedSegment> results = process(missing);
+		wordsSent.addAndGet(missing.size());
+		for (int j = 0; j < missing.size(); ++j) {
+			String word = split(missing.get(j).getValue())[0];
+			words.put(word, results.get(j));
+			cache.put(word, results.get(j));
+		}
+
+		Vector<AnalyzedSegment> composed = new Vector<AnalyzedSegment>();
+		for (String[] split : segmentWords) {
+			Vector<String> lemmas = new Vector<String>();
+			HashMap<String, Integer> pos = new HashMap<String, Integer>();
+			String p = "";
+			int leadingUntagged = 0;
+			String lastTag = null;
+			for (String word : split) {
+				AnalyzedSegment analyzed = words.get(word);
+				lemmas.addAll(analyzed.getLemmas());
+				for (int i = 0; i < analyzed.getNbOfPosTags(); ++i) {
+					String tag = analyzed.getPosTag(i);
+					int count = analyzed.getPosCount(i);
+					if (tag.isEmpty()) {
+						// words untagged at the beginning of this word are counted below, with the tag carried so far
+						count -= analyzed.getLeadingUntagged();
+					}
+					add(pos, tag, count);
+				}
+				add(pos, p, analyzed.getLeadingUntagged());
+				if (lastTag == null) {
+					leadingUntagged += analyzed.getLeadingUntagged();
+				}
+				if (analyzed.getLastTag() != null) {
+					p = analyzed.getLastTag();
+					lastTag = p;
+				}
+			}
+			composed.add(new AnalyzedSegment(lemmas, pos, leadingUntagged, lastTag));
+		}
+		return composed;
+	}
+
+	/**
+	 * Adds words to the count of a POS tag.
+	 * @param pos HashMap from POS tag to number of words
+	 * @param tag POS tag
+	 * @param count Number of words to add, nothing is added if 0
+	 */
+	private static void add(HashMap<String, Integer> pos, String tag, int count) {
+		if (count > 0) {
+			Integer previous = pos.get(tag);
+			pos.put(tag, (previous == null ? 0 : previous) + count);
+		}
+	}
+
+	/**
+	 * Sends segments to Madamira, at most madamira.batch of them at a time: only the lemmas and POS tags of a batch are kept,
+	 * so the full output of Madamira, with every analysis of every word, never has to fit in memory for the whole input.
+	 * @param segments Input segments
+	 * @return Analyzed segments, in the same order (empty if there is no segment, without calling Madamira)
+	 * @throws Exception If Madamira input cannot be built or Madamira fails
+	 */
+	private static Vector<AnalyzedSegment> process(List<InSeg> segments) throws Exception {
+		Vector<AnalyzedSegment> results = new Vector<AnalyzedSegment>();
+		if (segments.isEmpty()) {
+			return results;
+		}
+		int batchSize = Configuration.get().getMadamiraBatchSize();
+		for (int start = 0; start < segments.size(); start += batchSize) {
+			List<InSeg> batch = segments.subList(start, Math.min(start + batchSize, segments.size()));
+			MadamiraOutput output = Madamira.analyze(XMLParser.buildInput(batch));
+			List<OutSeg> outSegments = output.getOutDoc().getOutSeg();
+			if (outSegments.size() != batch.size()) {
+				throw new IllegalStateException("Madamira returned " + outSegments.size() + " segments for "
+						+ batch.size() + " input segments");
+			}
+			for (OutSeg segment : outSegments) {
+				results.add(XMLParser.analyzeSegment(segment));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Splits the text of a segment into its words, as joined by XMLParser.
+	 * @param text Text of the segment
+	 * @return Words
+	 */
+	private static String[] split(String text) {
+		Vector<String> words = new Vector<String>();
+		for (String word : text.split(" ")) {
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words.toArray(new String[words.size()]);
+	}
+}
@@ -0,0 +1,292 @@
+package feature_extraction;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of Madamira analyses, from the text of a segment to its lemmas and POS tags.
+ * Madamira analyzes every segment on its own, so a segment that was already analyzed does not need to be analyzed again.
+ * When the cache is full, the least recently used segment is dropped.
+ * The cache can be saved to a file and loaded back, so that it survives restarts.
+ * The same structure caches the analyses of single words, out of context, for the word-level analysis.
+ * File format (big-endian):
+ * - magic number and version
+ * - Madamira settings the analyses were made with, as returned by getMadamiraSettings
+ * - number of segments
+ * - for every segment, from least to most recently used: its text, its number of lemmas, its lemmas,
+ * its number of POS tags, every POS tag followed by its number of words, its number of words before the first lemmatized word,
+ * and whether a word was lemmatized, followed by the POS tag of the last lemmatized word if so
+ * Strings are written in modified UTF-8, as by DataOutputStream.writeUTF.
+ */
+public class SegmentCache {
+	/**
+	 * Magic number at the beginning of cache files.
+	 */
+	private static final int MAGIC = 0x4F4D4143;
+
+	/**
+	 * Version of the file format.
+	 */
+	private static final int VERSION = 3;
+
+	/**
+	 * Shared cache of segments, created on first use.
+	 */
+	private static SegmentCache shared = null;
+
+	/**
+	 * Shared cache of words, created on first use.
+	 */
+	private static SegmentCache sharedWords = null;
+
+	/**
+	 * Maximum number of segments.
+	 */
+	private final int capacity;
+
+	/**
+	 * Analyzed segments by text, from least to most recently used.
+	 */
+	private final LinkedHashMap<String, AnalyzedSegment> segments;
+
+	/**
+	 * Number of lookups that found their segment.
+	 */
+	private long hits = 0;
+
+	/**
+	 * Number of lookups that did not find their segment.
+	 */
+	private long misses = 0;
+
+	/**
+	 * Creates an empty cache.
+	 * @param capacity Maximum number of segments. With 0, nothing is cached.
+	 */
+	public SegmentCache(final int capacity) {
+		this.capacity = capacity;
+		segments = new LinkedHashMap<String, AnalyzedSegment>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, AnalyzedSegment> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the shared cache of segments, whose capacity is set by cache.segments in the configuration.
+	 * If cache.file is set, the cache is loaded from that file on first use, and saved to it when the JVM stops.
+	 * @return Shared cache of segments
+	 */
+	public static synchronized SegmentCache getShared() {
+		if (shared == null) {
+			shared = open(Configuration.get().getSegmentCacheSize(), Configuration.get().getSegmentCacheFile());
+		}
+		return shared;
+	}
+
+	/**
+	 * Returns the shared cache of words analyzed out of context, whose capacity is set by cache.words in the configuration.
+	 * If cache.words.file is set, the cache is loaded from that file on first use, and saved to it when the JVM stops.
+	 * @return Shared cache of words
+	 */
+	public static synchronized SegmentCache getSharedWords() {
+		if (sharedWords == null) {
+			sharedWords = open(Configuration.get().getWordCacheSize(), Configuration.get().getWordCacheFile());
+		}
+		return sharedWords;
+	}
+
+	/**
+	 * Creates a cache, loading it from a file if it exists, and saving it to that file when the JVM stops.
+	 * @param capacity Maximum number of segments
+	 * @param filename Location of the cache file, or null if the cache is not saved
+	 * @return Cache
+	 */
+	private static SegmentCache open(int capacity, String filename) {
+		final SegmentCache cache = new SegmentCache(capacity);
+		if (filename != null && capacity > 0) {
+			final File file = new File(filename);
+			final String settings = getMadamiraSettings();
+			if (file.exists()) {
+				try {
+					cache.load(file, settings);
+				}
+				catch (IOException e) {
+					System.out.println("Could not load segment cache " + file + ": " + e.getMessage());
+				}
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				public void run() {
+					try {
+						cache.save(file, settings);
+					}
+					catch (IOException e) {
+						System.out.println("Could not save segment cache " + file + ": " + e.getMessage());
+					}
+				}
+			});
+		}
+		return cache;
+	}
+
+	/**
+	 * Describes the settings that change what Madamira outputs: the template, with its last modification time,
+	 * and whether the analysis is minimal. A saved cache is only loaded back with the same settings.
+	 * @return Description of the settings
+	 */
+	static String getMadamiraSettings() {
+		File template = new File(Configuration.get().getTemplate());
+		return "template=" + template.getAbsolutePath() + "@" + template.lastModified()
+				+ ";minimal=" + Configuration.get().isMinimalAnalysis();
+	}
+
+	/**
+	 * Returns the analysis of a segment, and marks it as recently used.
+	 * @param text Text of the segment, as sent to Madamira
+	 * @return Analyzed segment, or null if it is not in the cache
+	 */
+	public synchronized AnalyzedSegment get(String text) {
+		AnalyzedSegment segment = segments.get(text);
+		if (segment == null) {
+			++misses;
+		}
+		else {
+			++hits;
+		}
+		return segment;
+	}
+
+	/**
+	 * Adds the analysis of a segment, dropping the least recently used segment if the cache is full.
+	 * @param text Text of the segment, as sent to Madamira
+	 * @param segment Analyzed segment
+	 */
+	public synchronized void put(String text, AnalyzedSegment segment) {
+		segments.put(text, segment);
+	}
+
+	/**
+	 * Drops every segment and resets the hit and miss counts.
+	 */
+	public synchronized void clear() {
+		segments.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Returns the number of segments in the cache.
+	 * @return Number of segments
+	 */
+	public synchronized int size() {
+		return segments.size();
+	}
+
+	/**
+	 * Returns the number of lookups that found their segment.
+	 * @return Number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups that did not find their segment.
+	 * @return Number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Adds the segments saved in a file, unless they were analyzed with other Madamira settings.
+	 * @param file Cache file
+	 * @param settings Current Madamira settings, as returned by getMadamiraSettings
+	 * @throws IOException If the file cannot be read or is not a cache file
+	 */
+	public synchronized void load(File file, String settings) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not a segment cache");
+			}
+			if (!in.readUTF().equals(settings)) {
+				System.out.println("Madamira settings changed since " + file + " was saved, ignoring it.");
+				return;
+			}
+			int nbOfSegments = in.readInt();
+			for (int i = 0; i < nbOfSegments; ++i) {
+				String text = in.readUTF();
+				String[] lemmas = new String[in.readInt()];
+				for (int j = 0; j < lemmas.length; ++j) {
+					lemmas[j] = in.readUTF();
+				}
+				String[] posTags = new String[in.readInt()];
+				int[] posCounts = new int[posTags.length];
+				for (int j = 0; j < posTags.length; ++j) {
+					posTags[j] = in.readUTF();
+					posCounts[j] = in.readInt();
+				}
+				int leadingUntagged = in.readInt();
+				String lastTag = in.readBoolean() ? in.readUTF() : null;
+				segments.put(text, new AnalyzedSegment(lemmas, posTags, posCounts, leadingUntagged, lastTag));
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Saves the cache to a file. The file is replaced only once it is fully written.
+	 * @param file Cache file
+	 * @param settings Madamira settings the analyses were made with, as returned by getMadamiraSettings
+	 * @throws IOException If the file cannot be written
+	 */
+	public synchronized void save(File file, String settings) throws IOException {
+		File partial = new File(file.getPath() + ".part");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partial)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(settings);
+			out.writeInt(segments.size());
+			for (Map.Entry<String, AnalyzedSegment> entry : segments.entrySet()) {
+				AnalyzedSegment segment = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeInt(segment.size());
+				for (int j = 0; j < segment.size(); ++j) {
+					out.writeUTF(segment.getLemma(j));
+				}
+				out.writeInt(segment.getNbOfPosTags());
+				for (int j = 0; j < segment.getNbOfPosTags(); ++j) {
+					out.writeUTF(segment.getPosTag(j));
+					out.writeInt(segment.getPosCount(j));
+				}
+				out.writeInt(segment.getLeadingUntagged());
+				out.writeBoolean(segment.getLastTag() != null);
+				if (segment.getLastTag() != null) {
+					out.writeUTF(segment.getLastTag());
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+		if (!partial.renameTo(file)) {
+			file.delete();
+			if (!partial.renameTo(file)) {
+				throw new IOException("Cannot replace " + file);
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package feature_extraction;
+import java.util.Arrays;
+
+/**
+ * Sparse vector of integer features.
+ * Only non-zero features are stored, as sorted 0-based indices and their values.
+ * Features are appended in order, so the indices are always sorted.
+ */
+public class SparseVector {
+	/**
+	 * Indices of non-zero features, in increasing order.
+	 */
+	private int[] indices;
+
+	/**
+	 * Values of non-zero features.
+	 */
+	private int[] values;
+
+	/**
+	 * Number of non-zero features.
+	 */
+	private int size = 0;
+
+	/**
+	 * Total number of features, including zeros.
+	 */
+	private int dimension = 0;
+
+	/**
+	 * Creates an empty vector.
+	 */
+	public SparseVector() {
+		this(32);
+	}
+
+	/**
+	 * Creates an empty vector with room for the given number of non-zero features.
+	 * @param capacity Expected number of non-zero features
+	 */
+	public SparseVector(int capacity) {
+		indices = new int[Math.max(capacity, 1)];
+		values = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Appends a feature at the end of the vector.
+	 * @param value Value of the feature
+	 */
+	public void append(int value) {
+		if (value != 0) {
+			store(dimension, value);
+		}
+		++dimension;
+	}
+
+	/**
+	 * Appends a boolean feature at the end of the vector: 1 if true, 0 otherwise.
+	 * @param value Value of the feature
+	 */
+	public void append(boolean value) {
+		append(value ? 1 : 0);
+	}
+
+	/**
+	 * Appends all features of another vector at the end of this one.
+	 * @param other Vector to append
+	 */
+	public void append(SparseVector other) {
+		for (int i = 0; i < other.size; ++i) {
+			store(dimension + other.indices[i], other.values[i]);
+		}
+		dimension += other.dimension;
+	}
+
+	/**
+	 * Appends a block of binary features, of which only the given ones are set to 1.
+	 * @param offsets Offsets of the features set to 1 within the block, sorted in increasing order without duplicates
+	 * @param count Number of offsets to read from the array
+	 * @param length Total number of features in the block
+	 */
+	public void appendIndicators(int[] offsets, int count, int length) {
+		for (int i = 0; i < count; ++i) {
+			store(dimension + offsets[i], 1);
+		}
+		dimension += length;
+	}
+
+	/**
+	 * Returns the number of non-zero features.
+	 * @return Number of non-zero features
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the total number of features, including zeros.
+	 * @return Dimension of the vector
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Returns the 0-based index of the i-th non-zero feature.
+	 * @param i Position among non-zero features
+	 * @return Index of the feature
+	 */
+	public int getIndex(int i) {
+		return indices[i];
+	}
+
+	/**
+	 * Returns the value of the i-th non-zero feature.
+	 * @param i Position among non-zero features
+	 * @return Value of the feature
+	 */
+	public int getValue(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Stores a non-zero feature, growing the arrays if needed.
+	 * @param index Index of the feature
+	 * @param value Value of the feature
+	 */
+	private void store(int index, int value) {
+		if (size == indices.length) {
+			indices = Arrays.copyOf(indices, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		indices[size] = index;
+		values[size] = value;
+		++size;
+	}
+}
@@ -0,0 +1,349 @@
+package feature_extraction;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Normalizes and tokenizes a tweet in a single left-to-right walk over its characters.
+ * Its output is identical to running, one after the other:
+ * PunctuationExtractor.getPunctuation, Normalizer.normalizeURLs, Normalizer.normalizeMentions,
+ * Normalizer.normalizeNumbers, Normalizer.normalizeLatinLetters, then splitting the result into words.
+ * Each of these steps is a stage that receives the characters produced by the previous one,
+ * so no intermediate String is built.
+ * Tweets that contain line breaks are rare (tweet files have one tweet per line) and go through the separate steps instead.
+ */
+public class TweetScanner {
+	/**
+	 * Token that replaces URLs.
+	 */
+	private static final String URL_TOKEN = "يوارالتوكن";
+
+	/**
+	 * Token that replaces user mentions.
+	 */
+	private static final String MENTION_TOKEN = "منشنتوكن";
+
+	/**
+	 * Words of the normalized tweet.
+	 */
+	private final Vector<String> words = new Vector<String>();
+
+	/**
+	 * Number of interrogation points.
+	 */
+	private int interrogations = 0;
+
+	/**
+	 * Number of exclamation points.
+	 */
+	private int exclamations = 0;
+
+	/**
+	 * Number of interrogation and exclamation points next to each other.
+	 */
+	private int both = 0;
+
+	/**
+	 * Whether the tweet contains a URL.
+	 */
+	private boolean hasURL = false;
+
+	/**
+	 * Whether the tweet contains a user mention.
+	 */
+	private boolean hasMention = false;
+
+	/**
+	 * Whether the URL stage is skipping the rest of a URL.
+	 */
+	private boolean inURL = false;
+
+	/**
+	 * Last character received by the mention stage, or 0 if none was.
+	 */
+	private char previous = 0;
+
+	/**
+	 * Whether the mention stage is skipping the rest of a mention.
+	 */
+	private boolean inMention = false;
+
+	/**
+	 * Whether the number stage is inside a Western Arabic number.
+	 */
+	private boolean inNumber = false;
+
+	/**
+	 * Whether the Eastern number stage is inside an Eastern Arabic number.
+	 */
+	private boolean inEasternNumber = false;
+
+	/**
+	 * Whether the Latin stage is inside a Latin word.
+	 */
+	private boolean inLatin = false;
+
+	/**
+	 * Characters of the word being read by the tokenization stage.
+	 */
+	private final StringBuilder word = new StringBuilder();
+
+	/**
+	 * Scans a tweet.
+	 * @param tweet Input tweet, after emojis and emoticons have been normalized
+	 */
+	public TweetScanner(String tweet) {
+		if (tweet.indexOf('\n') != -1) {
+			scanInSteps(tweet);
+			return;
+		}
+
+		int length = tweet.length();
+		boolean pairable = false;
+		for (int i = 0; i < length; ++i) {
+			char c = tweet.charAt(i);
+
+			// punctuation counts, on the tweet itself
+			if (c == '?' || c == '؟') {
+				++interrogations;
+			}
+			else if (c == '!') {
+				++exclamations;
+			}
+			if (pairable && isPair(tweet.charAt(i-1), c)) {
+				++both;
+				pairable = false;
+			}
+			else {
+				pairable = true;
+			}
+
+			// URLs: everything from "http://" or "https://" up to the next space is replaced by a token
+			if (inURL) {
+				if (c != ' ') {
+					continue;
+				}
+				inURL = false;
+			}
+			else if (c == 'h' && (tweet.startsWith("http://", i) || tweet.startsWith("https://", i))) {
+				hasURL = true;
+				inURL = true;
+				for (int j = 0; j < URL_TOKEN.length(); ++j) {
+					mentionStage(URL_TOKEN.charAt(j));
+				}
+				continue;
+			}
+			mentionStage(c);
+		}
+
+		endOfTweet();
+	}
+
+	/**
+	 * Returns the words of the normalized tweet.
+	 * @return Vector of words
+	 */
+	public Vector<String> getWords() {
+		return words;
+	}
+
+	/**
+	 * Returns the number of interrogation points.
+	 * @return Number of interrogation points
+	 */
+	public int getInterrogations() {
+		return interrogations;
+	}
+
+	/**
+	 * Returns the number of exclamation points.
+	 * @return Number of exclamation points
+	 */
+	public int getExclamations() {
+		return exclamations;
+	}
+
+	/**
+	 * Returns the number of interrogation and exclamation points next to each other.
+	 * @return Number of both interrogation and exclamation points
+	 */
+	public int getInterrogationsAndExclamations() {
+		return both;
+	}
+
+	/**
+	 * Indicates whether the tweet contains a URL.
+	 * @return Whether the tweet contains a URL
+	 */
+	public boolean hasURL() {
+		return hasURL;
+	}
+
+	/**
+	 * Indicates whether the tweet contains a user mention.
+	 * @return Whether the tweet contains a user mention
+	 */
+	public boolean hasMention() {
+		return hasMention;
+	}
+
+	/**
+	 * Indicates whether two consecutive characters are an interrogation point and an exclamation point.
+	 * @param first First character
+	 * @param second Second character
+	 * @return Whether they form a pair
+	 */
+	private static boolean isPair(char first, char second) {
+		return ((first == '?' || first == '؟') && second == '!') || (first == '!' && (second == '?' || second == '؟'));
+	}
+
+	/**
+	 * Mention stage: a mention that starts a word is replaced by a token up to the next space.
+	 * @param c Character produced by the URL stage
+	 */
+	private void mentionStage(char c) {
+		char before = previous;
+		previous = c;
+		if (inMention) {
+			if (c != ' ') {
+				return;
+			}
+			inMention = false;
+		}
+		else if (c == '@') {
+			hasMention = true;
+			if (before == 0 || before == ' ') {
+				inMention = true;
+				for (int j = 0; j < MENTION_TOKEN.length(); ++j) {
+					numberStage(MENTION_TOKEN.charAt(j));
+				}
+				return;
+			}
+		}
+		numberStage(c);
+	}
+
+	/**
+	 * Number stage: spaces are added around Western Arabic numbers, replacing the character that follows them.
+	 * @param c Character produced by the mention stage
+	 */
+	private void numberStage(char c) {
+		if (c >= '0' && c <= '9') {
+			if (!inNumber) {
+				inNumber = true;
+				easternNumberStage(' ');
+			}
+			easternNumberStage(c);
+		}
+		else if (inNumber) {
+			inNumber = false;
+			easternNumberStage(' ');
+		}
+		else {
+			easternNumberStage(c);
+		}
+	}
+
+	/**
+	 * Eastern number stage: spaces are added around Eastern Arabic numbers, replacing the character that follows them.
+	 * @param c Character produced by the number stage
+	 */
+	private void easternNumberStage(char c) {
+		if (c >= '٠' && c <= '٩') {
+			if (!inEasternNumber) {
+				inEasternNumber = true;
+				latinStage(' ');
+			}
+			latinStage(c);
+		}
+		else if (inEasternNumber) {
+			inEasternNumber = false;
+			latinStage(' ');
+		}
+		else {
+			latinStage(c);
+		}
+	}
+
+	/**
+	 * Latin stage: spaces are added around Latin words, replacing the character that follows them.
+	 * @param c Character produced by the Eastern number stage
+	 */
+	private void latinStage(char c) {
+		if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+			if (!inLatin) {
+				inLatin = true;
+				tokenStage(' ');
+			}
+			tokenStage(c);
+		}
+		else if (inLatin) {
+			inLatin = false;
+			tokenStage(' ');
+		}
+		else {
+			tokenStage(c);
+		}
+	}
+
+	/**
+	 * Tokenization stage: words are separated by spaces, line breaks and tabs.
+	 * @param c Character produced by the Latin stage
+	 */
+	private void tokenStage(char c) {
+		if (c == ' ' || c == '\n' || c == '\t') {
+			if (word.length() != 0) {
+				words.addElement(word.toString());
+				word.setLength(0);
+			}
+		}
+		else {
+			word.append(c);
+		}
+	}
+
+	/**
+	 * Flushes all stages at the end of the tweet.
+	 */
+	private void endOfTweet() {
+		if (inNumber) {
+			inNumber = false;
+			easternNumberStage(' ');
+		}
+		if (inEasternNumber) {
+			inEasternNumber = false;
+			latinStage(' ');
+		}
+		if (inLatin) {
+			inLatin = false;
+			tokenStage(' ');
+		}
+		tokenStage(' ');
+	}
+
+	/**
+	 * Scans a tweet by running every step on the whole tweet, one after the other.
+	 * @param tweet Input tweet
+	 */
+	private void scanInSteps(String tweet) {
+		HashMap<String,Integer> punctuation = PunctuationExtractor.getPunctuation(tweet);
+		interrogations = punctuation.get("?");
+		exclamations = punctuation.get("!");
+		both = punctuation.get("?!");
+
+		hasURL = Normalizer.hasURL(tweet);
+		if (hasURL) {
+			tweet = Normalizer.normalizeURLs(tweet);
+		}
+		hasMention = Normalizer.hasMention(tweet);
+		if (hasMention) {
+			tweet = Normalizer.normalizeMentions(tweet);
+		}
+		tweet = Normalizer.normalizeNumbers(tweet);
+		tweet = Normalizer.normalizeLatinLetters(tweet);
+
+		for (int i = 0; i < tweet.length(); ++i) {
+			tokenStage(tweet.charAt(i));
+		}
+		tokenStage(' ');
+	}
+}
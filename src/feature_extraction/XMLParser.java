@@ -1,256 +1,309 @@
 package feature_extraction;
 
-import org.w3c.dom.*;
-import org.xml.sax.InputSource;
-
-import javax.xml.parsers.*;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import edu.columbia.ccls.madamira.configuration.InDoc;
+import edu.columbia.ccls.madamira.configuration.InSeg;
+import edu.columbia.ccls.madamira.configuration.MadamiraConfiguration;
+import edu.columbia.ccls.madamira.configuration.MadamiraInput;
+import edu.columbia.ccls.madamira.configuration.MadamiraOutput;
+import edu.columbia.ccls.madamira.configuration.MorphFeatureSet;
+import edu.columbia.ccls.madamira.configuration.OutSeg;
+import edu.columbia.ccls.madamira.configuration.ReqVariable;
+import edu.columbia.ccls.madamira.configuration.RequestedOutput;
+import edu.columbia.ccls.madamira.configuration.Scheme;
+import edu.columbia.ccls.madamira.configuration.Word;
+
+import javax.xml.bind.JAXBContext;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Vector;
 
 public class XMLParser {
 	/**
-	 * Takes a HashMap of preprocessed tweets and places them in the input configuration file to be given to Madamira.
-	 * @param map HashMap of preprocessed tweets
-	 * @param fileName Location of existing Madamira input file
-	 * @param withHashtags Whether Hashtags should be lemmatized as well
+	 * Madamira configuration read from the template, loaded on first use.
 	 */
-	public static void inputXML(Vector<HashMap<String, Object>> map, String fileName, boolean withHashtags) {
-		try {
-			InputStream inputStream= new FileInputStream(fileName);
-	        Reader reader = new InputStreamReader(inputStream,"UTF-8");
-	        InputSource is = new InputSource(reader);
-	        is.setEncoding("UTF-8");
-	        
-	        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-	        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-	        Document doc = dBuilder.parse(is);
+	private static MadamiraConfiguration configuration = null;
 
-			Node node = doc.getElementsByTagName("in_doc").item(0);
-			// Removing previous tweets
-			while (node.hasChildNodes()) {
-				node.removeChild(node.getFirstChild());
-			}
+	/**
+	 * Variables requested from Madamira in the minimal analysis: the only ones read from its output.
+	 */
+	private static final List<String> MINIMAL_VARIABLES = Arrays.asList("LEMMA", "POS");
 
-			int nbOfTweets = map.size();
+	/**
+	 * Tokenization scheme kept in the minimal analysis.
+	 */
+	private static final String MINIMAL_SCHEME = "ATB";
 
-			// Adding new tweets
-			for (int i = 0; i < nbOfTweets; i++) {
-				HashMap<String, Object> preprocessingMap = map.get(i);
-				@SuppressWarnings("unchecked")
-				Vector<String> tweet = (Vector<String>) (preprocessingMap.get("normalized"));
-				String tweetText = "";
+	/**
+	 * Builds the Madamira input for the given preprocessed tweets directly in memory.
+	 * Segments are the ones of buildSegments: each tweet, followed by its hashtags if needed.
+	 * @param map Vector of preprocessed tweets
+	 * @param withHashtags Whether Hashtags should be lemmatized as well
+	 * @return Madamira input
+	 * @throws Exception If the template configuration cannot be read
+	 */
+	public static MadamiraInput buildInput(Vector<PreprocessedTweet> map, boolean withHashtags) throws Exception {
+		return buildInput(buildSegments(map, withHashtags));
+	}
 
-				for (String word : tweet) {
-					tweetText += word + " ";
+	/**
+	 * Builds a Madamira input out of segments, with the configuration of the template.
+	 * @param segments Input segments
+	 * @return Madamira input
+	 * @throws Exception If the template configuration cannot be read
+	 */
+	public static MadamiraInput buildInput(List<InSeg> segments) throws Exception {
+		MadamiraInput input = new MadamiraInput();
+		input.setMadamiraConfiguration(getConfiguration());
+		InDoc doc = new InDoc();
+		doc.setId("ExampleDocument");
+		doc.getInSeg().addAll(segments);
+		input.setInDoc(doc);
+		return input;
+	}
+
+	/**
+	 * Creates the input segments of the given preprocessed tweets: each tweet, followed by its hashtags if needed.
+	 * @param map Vector of preprocessed tweets
+	 * @param withHashtags Whether Hashtags should be lemmatized as well
+	 * @return Vector of input segments
+	 */
+	public static Vector<InSeg> buildSegments(Vector<PreprocessedTweet> map, boolean withHashtags) {
+		Vector<InSeg> segments = new Vector<InSeg>();
+		int nbOfTweets = map.size();
+		for (int i = 0; i < nbOfTweets; i++) {
+			PreprocessedTweet preprocessed = map.get(i);
+			segments.add(segment("tweet" + i, preprocessed.getNormalized()));
+
+			if (withHashtags) {
+				String[][] hashtags = preprocessed.getHashtags();
+				for (int j = 0; j < hashtags.length; ++j) {
+					segments.add(segment("hashtag" + j, hashtags[j]));
 				}
-				
-				Text a = doc.createTextNode(tweetText);
-				Element p = doc.createElement("in_seg");
-				p.setAttribute("id", "tweet" + i);
-				p.appendChild(a);
-				node.insertBefore(p, null);
+			}
+		}
+		return segments;
+	}
 
-				if (withHashtags) {
-					@SuppressWarnings("unchecked")
-					Vector<Vector<String>> hashtags = (Vector<Vector<String>>) (preprocessingMap.get("hashtags"));
+	/**
+	 * Extracts lemmas, POS tags and hashtag lemmas from a Madamira output that is already in memory.
+	 * The output HashMap is described in assemble.
+	 * @param madamiraOutput Madamira output
+	 * @param preprocessed Vector of preprocessed tweets
+	 * @param withHashtags Whether Hashtags were lemmatized as well
+	 * @return Output HashMap
+	 */
+	public static HashMap<String, Object> parseOutput(MadamiraOutput madamiraOutput, Vector<PreprocessedTweet> preprocessed,
+			boolean withHashtags) {
+		Vector<AnalyzedSegment> segments = new Vector<AnalyzedSegment>();
+		for (OutSeg segment : madamiraOutput.getOutDoc().getOutSeg()) {
+			segments.add(analyzeSegment(segment));
+		}
+		return assemble(segments, preprocessed, withHashtags);
+	}
 
-					for (int j = 0; j < hashtags.size(); ++j) {
-						Vector<String> hashtag = hashtags.elementAt(j);
-						String hashtagText = "";
-						for (String word : hashtag) {
-							hashtagText += word + " ";
-						}
-						Text a2 = doc.createTextNode(hashtagText);
-						Element p2 = doc.createElement("in_seg");
-						p2.setAttribute("id", "hashtag" + j);
-						p2.appendChild(a2);
-						node.insertBefore(p2, null);
-					}
+	/**
+	 * Extracts the lemmas and POS tags of an output segment.
+	 * A word that was not lemmatized keeps its form as lemma, and counts as having the POS tag of the word before it.
+	 * @param segment Madamira output segment
+	 * @return Analyzed segment
+	 */
+	public static AnalyzedSegment analyzeSegment(OutSeg segment) {
+		Vector<String> v = new Vector<String>();
+		HashMap<String, Integer> pV = new HashMap<String, Integer>();
+		String p = "";
+		int leadingUntagged = 0;
+		String lastTag = null;
+		for (Word word : words(segment)) {
+			MorphFeatureSet morph = analysis(word);
+			if (morph == null) { // meaning that the word was not lemmatized
+				v.add(nonNull(word.getWord()));
+				if (lastTag == null) {
+					++leadingUntagged;
 				}
 			}
-			
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();
-			Transformer transformer = transformerFactory.newTransformer();
-			DOMSource source = new DOMSource(doc);
-			
-			FileOutputStream f = new FileOutputStream(fileName);
-			StreamResult result = new StreamResult(new OutputStreamWriter(f, "UTF-8"));
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			transformer.transform(source, result);
-
-			fixNamespace(fileName);
-		} catch (Exception e) {
-			e.printStackTrace();
+			else {
+				v.add(cleanLemma(nonNull(morph.getLemma())));
+				p = nonNull(morph.getPos());
+				lastTag = p;
+			}
+			Integer count = pV.get(p);
+			pV.put(p, count == null ? 1 : count + 1);
 		}
+		return new AnalyzedSegment(v, pV, leadingUntagged, lastTag);
 	}
 
 	/**
-	 * Parses the output file produced by Madamira and extracts from it the lemmas for every tweet and hashtag.
-	 * It also parses the POS tags.
+	 * Puts analyzed segments back together into lemmas, POS tags and hashtag lemmas per tweet.
+	 * Segments are in the order of buildSegments: each tweet, followed by its hashtags if needed.
 	 * The output is a HashMap:
 	 * From -> To
 	 * lemmas -> Vector of tweets, where each tweet is a Vector of lemmas
 	 * pos -> Vector of tweets, where for each tweet there is a HashMap from POS tag to the number of words with that POS tag
 	 * hashtags -> Vector of tweets, where for each tweet there is a vector of Hashtags, which itself is a vector of lemmas
-	 * @param filename Madamira output file location
-	 * @param preprocessed HashMap of preprocessed tweets
+	 * @param segments Analyzed segments
+	 * @param preprocessed Vector of preprocessed tweets
 	 * @param withHashtags Whether Hashtags were lemmatized as well
 	 * @return Output HashMap
 	 */
-	@SuppressWarnings("unchecked")
-	public static HashMap<String, Object> outputXML(String filename, Vector<HashMap<String, Object>> preprocessed,
+	public static HashMap<String, Object> assemble(List<AnalyzedSegment> segments, Vector<PreprocessedTweet> preprocessed,
 			boolean withHashtags) {
 		Vector<Vector<String>> lemmas = new Vector<Vector<String>>();
 		Vector<HashMap<String, Integer>> pos = new Vector<HashMap<String, Integer>>();
 		Vector<Vector<Vector<String>>> hashtags = new Vector<Vector<Vector<String>>>();
 
-		HashMap<String, Object> output = new HashMap<String, Object>();
-		try {
-			InputStream inputStream= new FileInputStream(filename);
-	        Reader reader = new InputStreamReader(inputStream,"UTF-8");
-	        InputSource is = new InputSource(reader);
-	        is.setEncoding("UTF-8");
-	        
-	        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-	        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-	        Document doc = dBuilder.parse(is);
-	        
-			doc.getDocumentElement().normalize();
-
-			NodeList segments = doc.getElementsByTagName("out_seg");
-
-			int k = 0;
+		int k = 0;
+		for (int m = 0; m < preprocessed.size(); m++) {
+			AnalyzedSegment tweet = segments.get(k);
+			lemmas.addElement(tweet.getLemmas());
+			pos.addElement(tweet.getPosCounts());
+			k++;
 
-			for (int m = 0; m < preprocessed.size(); m++) {
-				NodeList words = ((Element) segments.item(k)).getElementsByTagName("word");
-				String lemma = "";
-				String p = "";
-				Vector<String> v = new Vector<String>();
-				HashMap<String, Integer> pV = new HashMap<String, Integer>();
+			if (withHashtags) {
 				Vector<Vector<String>> hV = new Vector<Vector<String>>();
-
-				for (int i = 0; i < words.getLength(); i++) {
-					Node word = words.item(i);
-					NodeList features = ((Element) word).getElementsByTagName("morph_feature_set");
-
-					Element morph = (Element) features.item(1);
-					String cleaned = "";
-					if (morph == null) {// meaning that the word was not
-										// lemmatized
-						cleaned = ((Element) word).getAttribute("word");
-
-					} else {
-						// get lemma
-						lemma = morph.getAttribute("lemma");
-
-						for (int j = 0; j < lemma.length(); j++) {
-							char c = lemma.charAt(j);
-							if (c != '_') {
-								cleaned += lemma.charAt(j);
-							} else {
-								break;
-							}
-						}
-
-						// get pos
-						p = morph.getAttribute("pos");
-
-					}
-
-					// lemmas vector
-					v.add(cleaned);
-					// pos vector
-					if (pV.containsKey(p)) {
-						Integer count = pV.get(p);
-						pV.put(p, count + 1);
-					} else {
-						pV.put(p, 1);
-					}
-
+				int nbOfHashtags = preprocessed.elementAt(m).getHashtags().length;
+				for (int n = 0; n < nbOfHashtags; n++) {
+					hV.add(segments.get(k).getLemmas());
+					k++;
 				}
-				lemmas.addElement(v);
-				pos.addElement(pV);
-				k++;
-				if (withHashtags) {
-					for (int n = 0; n < ((Vector<String>) preprocessed.elementAt(m).get("hashtags")).size(); n++) {
-						Vector<String> h = new Vector<String>();
-						NodeList hwords = ((Element) segments.item(k)).getElementsByTagName("word");
-						String hlemma = "";
-						/****** start *****/
-
-						for (int i = 0; i < hwords.getLength(); i++) {
-							Node hword = hwords.item(i);
-							NodeList hfeatures = ((Element) hword).getElementsByTagName("morph_feature_set");
-
-							Element hmorph = (Element) hfeatures.item(1);
-							String hcleaned = "";
-							if (hmorph == null) {// meaning that the word was
-													// not lemmatized
-								hcleaned = ((Element) hword).getAttribute("word");
-
-							} else {
-								// get lemma
-								hlemma = hmorph.getAttribute("lemma");
+				hashtags.add(hV);
+			}
+		}
 
-								for (int j = 0; j < hlemma.length(); j++) {
-									char hc = hlemma.charAt(j);
-									if (hc != '_') {
-										hcleaned += hlemma.charAt(j);
-									} else {
-										break;
-									}
-								}
-							}
+		HashMap<String, Object> output = new HashMap<String, Object>();
+		output.put("lemmas", lemmas);
+		output.put("pos", pos);
+		output.put("hashtags", hashtags);
+		return output;
+	}
 
-							// lemmas vector
-							h.add(hcleaned);
+	/**
+	 * Returns the Madamira configuration of the template input file, reading it only once.
+	 * If the minimal analysis is enabled, the configuration only requests lemmas and POS tags.
+	 * @return Madamira configuration
+	 * @throws Exception If the template cannot be read
+	 */
+	private static synchronized MadamiraConfiguration getConfiguration() throws Exception {
+		if (configuration == null) {
+			Reader reader = new InputStreamReader(new FileInputStream(Configuration.get().getTemplate()), "UTF-8");
+			try {
+				// a JAXB context of its own, so that Madamira is not loaded when every segment is cached
+				MadamiraInput template = (MadamiraInput) JAXBContext.newInstance(MadamiraSession.MADAMIRA_NS)
+						.createUnmarshaller().unmarshal(reader);
+				configuration = template.getMadamiraConfiguration();
+				if (Configuration.get().isMinimalAnalysis()) {
+					minimize(configuration);
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		return configuration;
+	}
 
-						}
+	/**
+	 * Restricts a Madamira configuration to the minimal analysis:
+	 * only the variables read from the output are requested, and a single tokenization scheme is kept.
+	 * NER and base phrase chunks, which are requested as variables, are dropped with the others.
+	 * @param configuration Madamira configuration, modified in place
+	 */
+	private static void minimize(MadamiraConfiguration configuration) {
+		if (configuration.getRequestedOutput() == null) {
+			configuration.setRequestedOutput(new RequestedOutput());
+		}
+		List<ReqVariable> variables = configuration.getRequestedOutput().getReqVariable();
+		Vector<String> missing = new Vector<String>(MINIMAL_VARIABLES);
+		for (ReqVariable variable : variables) {
+			variable.setValue(MINIMAL_VARIABLES.contains(variable.getName()));
+			missing.remove(variable.getName());
+		}
+		for (String name : missing) {
+			ReqVariable variable = new ReqVariable();
+			variable.setName(name);
+			variable.setValue(true);
+			variables.add(variable);
+		}
 
-						/***** end ******/
-						hV.add(h);
-						k++;
-					}
-					hashtags.add(hV);
+		if (configuration.getTokenization() != null) {
+			Iterator<Scheme> schemes = configuration.getTokenization().getScheme().iterator();
+			while (schemes.hasNext()) {
+				if (!MINIMAL_SCHEME.equals(schemes.next().getAlias())) {
+					schemes.remove();
 				}
 			}
+		}
+	}
 
-		} catch (Exception e) {
-			e.printStackTrace();
+	/**
+	 * Creates an input segment out of an array of words, separating words by spaces.
+	 * @param id Segment id
+	 * @param words Words of the segment
+	 * @return Input segment
+	 */
+	static InSeg segment(String id, String[] words) {
+		StringBuilder text = new StringBuilder();
+		for (String word : words) {
+			text.append(word).append(' ');
 		}
-		output.put("lemmas", lemmas);
-		output.put("pos", pos);
-		output.put("hashtags", hashtags);
-		return output;
+		InSeg segment = new InSeg();
+		segment.setId(id);
+		segment.setValue(text.toString());
+		return segment;
+	}
+
+	/**
+	 * Returns the words of an output segment.
+	 * @param segment Output segment
+	 * @return List of words (empty if the segment has none)
+	 */
+	private static List<Word> words(OutSeg segment) {
+		if (segment.getWordInfo() == null) {
+			return new Vector<Word>();
+		}
+		return segment.getWordInfo().getWord();
 	}
 
 	/**
-	 * Adds the namespace to the Madamira input file
-	 * @param fileName Madamira input file
+	 * Returns the morphological features used for a word, which are in its second morph_feature_set element.
+	 * The first one is the SVM prediction, and the second one is the top analysis.
+	 * @param word Output word
+	 * @return Morphological features, or null if the word was not lemmatized
 	 */
-	private static void fixNamespace(String fileName) {
-		try {
-			String content = new String(Files.readAllBytes(Paths.get(fileName)), "UTF-8");
-			
-			int ind = content.indexOf("<madamira_input");
-			int ind2 = content.indexOf(">", ind);
-			String fixed = content.substring(0, ind2) + " xmlns=\"urn:edu.columbia.ccls.madamira.configuration:0.1\""
-					+ content.substring(ind2);
-			
-			PrintStream out = new PrintStream(new FileOutputStream(fileName), true, "UTF-8");
-			out.print(fixed);
-			out.close();
-		} catch (Exception e) {
-			e.printStackTrace();
+	private static MorphFeatureSet analysis(Word word) {
+		Vector<MorphFeatureSet> sets = new Vector<MorphFeatureSet>();
+		if (word.getSvmPrediction() != null && word.getSvmPrediction().getMorphFeatureSet() != null) {
+			sets.add(word.getSvmPrediction().getMorphFeatureSet());
+		}
+		for (int i = 0; i < word.getAnalysis().size() && sets.size() < 2; i++) {
+			if (word.getAnalysis().get(i).getMorphFeatureSet() != null) {
+				sets.add(word.getAnalysis().get(i).getMorphFeatureSet());
+			}
 		}
+		return sets.size() < 2 ? null : sets.get(1);
+	}
+
+	/**
+	 * Removes the sense suffix of a lemma (everything starting from the first '_').
+	 * @param lemma Lemma as output by Madamira
+	 * @return Cleaned lemma
+	 */
+	private static String cleanLemma(String lemma) {
+		int ind = lemma.indexOf('_');
+		return ind == -1 ? lemma : lemma.substring(0, ind);
+	}
+
+	/**
+	 * Returns an empty String instead of null, like DOM attribute lookups.
+	 * @param value Attribute value
+	 * @return Value, or an empty String
+	 */
+	private static String nonNull(String value) {
+		return value == null ? "" : value;
 	}
 }